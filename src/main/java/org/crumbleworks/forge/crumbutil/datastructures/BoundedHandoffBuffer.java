@@ -0,0 +1,342 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.crumbleworks.forge.crumbutil.datastructures.Timeouts.nanosOf;
+import static org.crumbleworks.forge.crumbutil.validation.Parameters.greaterOrEqual;
+import static org.crumbleworks.forge.crumbutil.validation.Parameters.notNull;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands objects from producer threads to consumer threads with the <code>set</code>/<code>get</code> programming model of {@link WaitBuffer}, but holding up to a fixed number of objects, so a burst of objects set between two gets is not lost.
+ * <p>Setters wait while the buffer is full, getters while it is empty. {@link #takeBatch(List, int, Duration)} drains everything available at once, so a consumer handling bursts of work is woken up once per batch instead of once per object, and it frees the producers once per batch as well.
+ * <p>The waiting threads are counted, see {@link #isWaiting()}, {@link #waitingConsumers()} and {@link #waitingProducers()}; waking up nobody costs setters and getters no signal.
+ * <p>This class is thread-safe. <code>null</code> cannot be set, as it stands for no object.
+ * 
+ * @author Michael Stocker
+ * @since 0.8.0
+ * 
+ * @param <T> the type of the handed off objects
+ */
+public class BoundedHandoffBuffer<T> {
+    private final Object[] buffer;
+    private int head;
+    private int size;
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    
+    //only changed while holding the lock
+    private volatile int waitingConsumers;
+    private volatile int waitingProducers;
+    
+    /**
+     * Creates a buffer holding up to the given number of objects
+     * 
+     * @param capacity how many objects the buffer holds at most
+     * 
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public BoundedHandoffBuffer(int capacity) {
+        if(capacity < 1) {
+            throw new IllegalArgumentException("Illegal Capacity: " + capacity);
+        }
+        
+        buffer = new Object[capacity];
+    }
+    
+    /* ************************************************************************
+     * SETTING
+     */
+    
+    /**
+     * Sets an object, waiting for room if the buffer is full.
+     * 
+     * @param object the object to hand off
+     * 
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void set(T object) throws InterruptedException {
+        notNull(object);
+        
+        lock.lockInterruptibly();
+        try {
+            while(size == buffer.length) {
+                waitingProducers++;
+                try {
+                    notFull.await();
+                } finally {
+                    waitingProducers--;
+                }
+            }
+            
+            enqueue(object);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Sets an object, waiting up to the given timeout for room if the buffer is full.
+     * 
+     * @param object the object to hand off
+     * @param timeout how long to wait at most
+     * 
+     * @return whether the object was set
+     * 
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean set(T object, Duration timeout) throws InterruptedException {
+        notNull(object);
+        long remaining = nanosOf(timeout);
+        
+        lock.lockInterruptibly();
+        try {
+            while(size == buffer.length) {
+                if(remaining <= 0) {
+                    return false;
+                }
+                
+                waitingProducers++;
+                try {
+                    remaining = notFull.awaitNanos(remaining);
+                } finally {
+                    waitingProducers--;
+                }
+            }
+            
+            enqueue(object);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /* ************************************************************************
+     * GETTING
+     */
+    
+    /**
+     * Takes the oldest object, waiting for one to be set if the buffer is empty.
+     * 
+     * @return the oldest object
+     * 
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public T get() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while(size == 0) {
+                waitingConsumers++;
+                try {
+                    notEmpty.await();
+                } finally {
+                    waitingConsumers--;
+                }
+            }
+            
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Takes the oldest object, waiting up to the given timeout for one to be set if the buffer is empty.
+     * 
+     * @param timeout how long to wait at most
+     * 
+     * @return the oldest object, or <code>null</code> if none was set in time
+     * 
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public T get(Duration timeout) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            if(!awaitObjects(nanosOf(timeout))) {
+                return null;
+            }
+            
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Takes the oldest object if there is one, without waiting.
+     * 
+     * @return the oldest object, or <code>null</code> if the buffer is empty
+     */
+    public T tryGet() {
+        lock.lock();
+        try {
+            return size == 0 ? null : dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Takes up to <code>maxObjects</code> of the oldest objects at once, waiting up to the given timeout for one to be set if the buffer is empty. The objects are appended to the given list in the order they were set, so the same list can be cleared and reused for every batch.
+     * 
+     * @param into the list to append the objects to
+     * @param maxObjects how many objects to take at most
+     * @param timeout how long to wait at most
+     * 
+     * @return the number of objects taken, <code>0</code> if none was set in time
+     * 
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IllegalArgumentException if <code>maxObjects</code> is not positive
+     * @throws RuntimeException if the list throws when adding an object, in which case the objects added before are taken and the rest stays in the buffer
+     */
+    public int takeBatch(List<? super T> into, int maxObjects, Duration timeout) throws InterruptedException {
+        notNull(into);
+        greaterOrEqual(maxObjects, 1);
+        
+        lock.lockInterruptibly();
+        try {
+            if(!awaitObjects(nanosOf(timeout))) {
+                return 0;
+            }
+            
+            int max = Math.min(maxObjects, size);
+            int taken = 0;
+            try {
+                while(taken < max) {
+                    into.add(elementAt(head)); //may throw, so only what was added is taken
+                    buffer[head] = null;
+                    head = wrap(head + 1);
+                    size--;
+                    taken++;
+                }
+            } finally {
+                if(taken > 0 && waitingProducers > 0) {
+                    notFull.signalAll(); //once for the whole batch
+                }
+            }
+            
+            return taken;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /* ************************************************************************
+     * INTROSPECTION
+     */
+    
+    /**
+     * Returns whether any consumer is waiting for an object to be set.
+     * 
+     * @return whether there are waiting consumers
+     */
+    public boolean isWaiting() {
+        return waitingConsumers > 0;
+    }
+    
+    /**
+     * Returns the number of consumers waiting for an object to be set
+     * 
+     * @return the number of waiting consumers
+     */
+    public int waitingConsumers() {
+        return waitingConsumers;
+    }
+    
+    /**
+     * Returns the number of producers waiting for room in the buffer
+     * 
+     * @return the number of waiting producers
+     */
+    public int waitingProducers() {
+        return waitingProducers;
+    }
+    
+    /**
+     * Returns the number of objects in the buffer
+     * 
+     * @return the number of objects in the buffer
+     */
+    public int getSize() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Returns how many objects the buffer holds at most
+     * 
+     * @return the capacity of the buffer
+     */
+    public int getCapacity() {
+        return buffer.length;
+    }
+    
+    /* ************************************************************************
+     * HELPERS
+     */
+    
+    /*
+     * waits while the buffer is empty; false if the timeout ran out. Must hold the lock
+     */
+    private final boolean awaitObjects(long remaining) throws InterruptedException {
+        while(size == 0) {
+            if(remaining <= 0) {
+                return false;
+            }
+            
+            waitingConsumers++;
+            try {
+                remaining = notEmpty.awaitNanos(remaining);
+            } finally {
+                waitingConsumers--;
+            }
+        }
+        
+        return true;
+    }
+    
+    /*
+     * must hold the lock and have room
+     */
+    private final void enqueue(T object) {
+        buffer[wrap(head + size)] = object;
+        size++;
+        
+        if(waitingConsumers > 0) {
+            notEmpty.signal();
+        }
+    }
+    
+    /*
+     * must hold the lock and have an object
+     */
+    private final T dequeue() {
+        T object = elementAt(head);
+        buffer[head] = null;
+        head = wrap(head + 1);
+        size--;
+        
+        if(waitingProducers > 0) {
+            notFull.signal();
+        }
+        
+        return object;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private final T elementAt(int index) {
+        return (T)buffer[index];
+    }
+    
+    private final int wrap(int index) {
+        return index >= buffer.length ? index - buffer.length : index;
+    }
+}
@@ -0,0 +1,94 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Holds the latest of a series of values, e.g. a configuration snapshot or the latest quote, for readers that only care about the most recent one.
+ * <p>Writers overwrite a single slot and bump its version, they never block. Readers either read the latest value wait-free or wait until its version exceeds the last one they saw. Values nobody read before the next one was posted are coalesced, so slow readers skip them instead of building up a backlog; by how many versions a reader fell behind can be told from the versions it reads.
+ * <p>Unlike a {@link HandoffBuffer} reading does not take the value, every reader sees every value that is still the latest when it reads.
+ * <p>This class is thread-safe. <code>null</code> cannot be posted, as it stands for no value.
+ * 
+ * @author Michael Stocker
+ * @since 0.8.0
+ * 
+ * @param <T> the type of the values
+ */
+public class ConflatingMailbox<T> {
+    private final HandoffBuffer<T> slot = new HandoffBuffer<>();
+    
+    /**
+     * Posts a new value, replacing the previous one and waking up all waiting readers.
+     * 
+     * @param value the new value
+     * 
+     * @return the version the value was posted as
+     */
+    public long post(T value) {
+        return slot.set(value);
+    }
+    
+    /**
+     * Returns the latest value with its version, without waiting.
+     * 
+     * @return the latest value, or <code>null</code> if none was posted yet
+     */
+    public Versioned<T> peek() {
+        return slot.peek();
+    }
+    
+    /**
+     * Returns the latest value, without waiting.
+     * 
+     * @return the latest value, or <code>null</code> if none was posted yet
+     */
+    public T latest() {
+        Versioned<T> latest = slot.peek();
+        return latest == null ? null : latest.value();
+    }
+    
+    /**
+     * Returns the version of the latest value
+     * 
+     * @return the version of the latest value, <code>0</code> if none was posted yet
+     */
+    public long version() {
+        return slot.version();
+    }
+    
+    /**
+     * Waits until a value newer than the given version is posted and returns the latest one.
+     * 
+     * @param lastVersion the last version seen by the caller, <code>0</code> if none
+     * @param timeout how long to wait at most
+     * 
+     * @return the latest value with its version, or <code>null</code> if none newer was posted in time
+     * 
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public Versioned<T> awaitNewer(long lastVersion, Duration timeout) throws InterruptedException {
+        return slot.getNewerThan(lastVersion, timeout);
+    }
+    
+    /**
+     * Returns a future completed with the first value newer than the given version.
+     * 
+     * @param lastVersion the last version seen by the caller, <code>0</code> if none
+     * 
+     * @return a future of the newer value with its version
+     * 
+     * @see HandoffBuffer#newerThan(long)
+     */
+    public CompletableFuture<Versioned<T>> newerThan(long lastVersion) {
+        return slot.newerThan(lastVersion);
+    }
+    
+    /**
+     * Returns whether any reader is waiting for a newer value.
+     * 
+     * @return whether there are waiting readers
+     */
+    public boolean isWaiting() {
+        return slot.isWaiting();
+    }
+}
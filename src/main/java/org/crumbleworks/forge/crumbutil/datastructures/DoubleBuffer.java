@@ -0,0 +1,255 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.crumbleworks.forge.crumbutil.validation.Parameters.notNull;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import org.crumbleworks.forge.crumbutil.copyable.Copyable;
+
+/**
+ * Publishes frames, e.g. aggregated snapshots, from a producer thread to consumers without copying or allocating them per frame.
+ * <p>The producer writes into the {@link #back() back buffer} and {@link #publish() publishes} it by atomically swapping it to the front, consumers {@link #read(Function) read} the front buffer, which is always a consistent, completely written frame. The buffers are reused round-robin, so the back buffer holds an older frame after a swap and has to be written completely or updated by the producer; {@link #seededFrom(Copyable, Buffering)} creates the buffers from a {@link Copyable} once, up front.
+ * <p>With {@link Buffering#DOUBLE} the producer may have to wait for consumers still reading the buffer it is about to write into; any number of consumers may read at the same time. With {@link Buffering#TRIPLE} neither side ever waits, the third buffer holds the latest published frame until the consumer picks it up, but there must only be one consuming thread.
+ * <p>There must only be one producing thread.
+ * 
+ * @author Michael Stocker
+ * @since 0.8.0
+ * 
+ * @param <T> the type of the frames
+ */
+public class DoubleBuffer<T> {
+
+    /**
+     * How many buffers a {@link DoubleBuffer} swaps between
+     * 
+     * @author Michael Stocker
+     * @since 0.8.0
+     */
+    public static enum Buffering {
+        /**
+         * Two buffers; the producer waits for readers of the buffer it is about to write into, readers may be many
+         */
+        DOUBLE,
+        /**
+         * Three buffers; nobody waits, but there must only be one consumer
+         */
+        TRIPLE;
+    }
+    
+    private static final int INDEX_MASK = 0b11;
+    private static final int FRESH = 0b100;
+    
+    private final Buffering buffering;
+    private final Object[] buffers;
+    
+    private volatile long published;
+    
+    //DOUBLE
+    private volatile int front;
+    private final AtomicIntegerArray readers;
+    
+    //TRIPLE
+    private int back; //only touched by the producer
+    private int consumed; //only touched by the consumer
+    private final AtomicInteger middle; //index of the middle buffer, FRESH if not yet consumed
+    private final AtomicBoolean consuming;
+    
+    /**
+     * Creates a double buffer swapping between the two given buffers
+     * 
+     * @param front the buffer readable until the first frame is published
+     * @param back the buffer the first frame is written into
+     * 
+     * @throws IllegalArgumentException if a buffer is <code>null</code> or both are the same instance
+     */
+    public DoubleBuffer(T front, T back) {
+        this(Buffering.DOUBLE, front, back);
+    }
+    
+    /**
+     * Creates a triple buffer swapping between the three given buffers
+     * 
+     * @param front the buffer readable until the first frame is published
+     * @param middle the buffer holding published frames until they are read
+     * @param back the buffer the first frame is written into
+     * 
+     * @throws IllegalArgumentException if a buffer is <code>null</code> or any two are the same instance
+     */
+    public DoubleBuffer(T front, T middle, T back) {
+        this(Buffering.TRIPLE, front, middle, back);
+    }
+    
+    private DoubleBuffer(Buffering buffering, Object... buffers) {
+        for(int i = 0 ; i < buffers.length ; i++) {
+            notNull(buffers[i]);
+            for(int j = 0 ; j < i ; j++) {
+                if(buffers[i] == buffers[j]) {
+                    throw new IllegalArgumentException("Buffers must be distinct instances");
+                }
+            }
+        }
+        
+        this.buffering = buffering;
+        this.buffers = buffers;
+        
+        if(buffering == Buffering.DOUBLE) {
+            front = 0;
+            readers = new AtomicIntegerArray(2);
+            middle = null;
+            consuming = null;
+        } else {
+            consumed = 0;
+            middle = new AtomicInteger(1);
+            back = 2;
+            readers = null;
+            consuming = new AtomicBoolean();
+        }
+    }
+    
+    /**
+     * Creates a buffer whose frames are copies of the given one, which is readable until the first frame is published.
+     * 
+     * @param seed the initial frame
+     * @param buffering how many buffers to swap between
+     * @param <C> the type of the frames
+     * 
+     * @return the new buffer
+     */
+    public static <C extends Copyable<C>> DoubleBuffer<C> seededFrom(C seed, Buffering buffering) {
+        notNull(seed);
+        
+        if(notNull(buffering) == Buffering.DOUBLE) {
+            return new DoubleBuffer<>(seed, seed.createCopy());
+        }
+        
+        return new DoubleBuffer<>(seed, seed.createCopy(), seed.createCopy());
+    }
+    
+    /* ************************************************************************
+     * PRODUCER
+     */
+    
+    /**
+     * Returns the back buffer to write the next frame into. May only be called by the producer.
+     * <p>With {@link Buffering#DOUBLE} this waits until no consumer reads the buffer anymore, which is the frame published before the current one.
+     * 
+     * @return the back buffer
+     */
+    public T back() {
+        if(buffering == Buffering.TRIPLE) {
+            return bufferAt(back);
+        }
+        
+        int index = 1 - front;
+        for(int spins = 0 ; readers.get(index) != 0 ; spins++) {
+            if(spins < 100) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(this, 10_000);
+            }
+        }
+        
+        return bufferAt(index);
+    }
+    
+    /**
+     * Publishes the back buffer, making it the frame read by consumers from now on. May only be called by the producer.
+     * 
+     * @return the number of frames published so far
+     */
+    public long publish() {
+        if(buffering == Buffering.TRIPLE) {
+            back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+        } else {
+            front = 1 - front;
+        }
+        
+        return ++published; //single producer
+    }
+    
+    /* ************************************************************************
+     * CONSUMER
+     */
+    
+    /**
+     * Reads the latest published frame. The frame must not be used after the reader returned, as the producer may write into it afterwards.
+     * 
+     * @param reader reads the frame
+     * @param <R> the type of the result
+     * 
+     * @return the result of the reader
+     * 
+     * @throws IllegalStateException if another thread is reading a {@link Buffering#TRIPLE} buffer at the same time
+     */
+    public <R> R read(Function<? super T, R> reader) {
+        notNull(reader);
+        
+        if(buffering == Buffering.TRIPLE) {
+            return readTriple(reader);
+        }
+        
+        int index;
+        while(true) {
+            index = front;
+            readers.incrementAndGet(index);
+            if(front == index) {
+                break;
+            }
+            
+            readers.decrementAndGet(index); //swapped in between, the producer may be writing into it
+        }
+        
+        try {
+            return reader.apply(bufferAt(index));
+        } finally {
+            readers.decrementAndGet(index);
+        }
+    }
+    
+    private final <R> R readTriple(Function<? super T, R> reader) {
+        if(!consuming.compareAndSet(false, true)) {
+            throw new IllegalStateException("A triple buffer must only be read by one thread at a time");
+        }
+        
+        try {
+            if((middle.get() & FRESH) != 0) {
+                consumed = middle.getAndSet(consumed) & INDEX_MASK;
+            }
+            
+            return reader.apply(bufferAt(consumed));
+        } finally {
+            consuming.set(false);
+        }
+    }
+    
+    /* ************************************************************************
+     * INTROSPECTION
+     */
+    
+    /**
+     * Returns the number of frames published so far
+     * 
+     * @return the number of published frames
+     */
+    public long getPublished() {
+        return published;
+    }
+    
+    /**
+     * Returns how many buffers are swapped between
+     * 
+     * @return the buffering of this buffer
+     */
+    public Buffering getBuffering() {
+        return buffering;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private final T bufferAt(int index) {
+        return (T)buffers[index];
+    }
+}
@@ -0,0 +1,324 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.crumbleworks.forge.crumbutil.datastructures.Timeouts.FOREVER;
+import static org.crumbleworks.forge.crumbutil.datastructures.Timeouts.nanosOf;
+import static org.crumbleworks.forge.crumbutil.validation.Parameters.notNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands single objects from one thread to another, the successor of {@link WaitBuffer}.
+ * <p>An object {@link #set(Object) set} stays in the buffer until it is {@link #get(Duration) taken} by exactly one getter, or replaced by the next object, so nothing is lost if no getter is waiting at that moment. Every object set is published as a new {@link Versioned version}, which readers can wait for without taking it, see {@link #getNewerThan(long, Duration)} and {@link #newerThan(long)}.
+ * <p>The state of the buffer is a single atomic reference. Waiting threads enqueue themselves into a lock-free queue and park; setters drain the queue and unpark them, so a handoff costs no monitor and no lock. A waiting thread registers before checking the state one last time, so a setter either finds it registered or it finds the new object, and it removes itself again however it stops waiting.
+ * <p>This class is thread-safe. <code>null</code> cannot be set, as it stands for no object.
+ * 
+ * @author Michael Stocker
+ * @since 0.8.0
+ * 
+ * @param <T> the type of the handed off objects
+ */
+public class HandoffBuffer<T> {
+    /*
+     * Immutable state of the buffer; replaced as a whole
+     */
+    private static final class State<T> {
+        private final Versioned<T> current; //null before the first set
+        private final boolean taken;
+        
+        private State(Versioned<T> current, boolean taken) {
+            this.current = current;
+            this.taken = taken;
+        }
+        
+        private long version() {
+            return current == null ? 0 : current.version();
+        }
+        
+        private boolean available() {
+            return current != null && !taken;
+        }
+    }
+    
+    /*
+     * A waiting thread or future; enqueued into the waiters and woken up by the next set
+     */
+    private static final class Waiter {
+        private final Thread thread;
+        private final CompletableFuture<?> future;
+        private final long version;
+        
+        private Waiter(Thread thread, CompletableFuture<?> future, long version) {
+            this.thread = thread;
+            this.future = future;
+            this.version = version;
+        }
+    }
+    
+    private final AtomicReference<State<T>> state = new AtomicReference<>(new State<T>(null, false));
+    private final ConcurrentLinkedQueue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger waiting = new AtomicInteger(); //threads currently waiting and futures not yet completed
+    
+    /**
+     * Sets the object, replacing the previous one if it has not been taken yet, and wakes up all waiting getters.
+     * 
+     * @param object the object to hand off
+     * 
+     * @return the version the object was published as
+     */
+    public long set(T object) {
+        notNull(object);
+        
+        State<T> current;
+        State<T> next;
+        do {
+            current = state.get();
+            next = new State<>(new Versioned<>(object, current.version() + 1), false);
+        } while(!state.compareAndSet(current, next));
+        
+        wakeUp(next.current);
+        return next.version();
+    }
+    
+    /**
+     * Takes the object if there is one, without waiting.
+     * 
+     * @return the object, or <code>null</code> if there is none or it was taken already
+     */
+    public T tryGet() {
+        State<T> current;
+        do {
+            current = state.get();
+            if(!current.available()) {
+                return null;
+            }
+        } while(!state.compareAndSet(current, new State<>(current.current, true)));
+        
+        return current.current.value();
+    }
+    
+    /**
+     * Takes the object, waiting for one to be set if necessary.
+     * 
+     * @return the object
+     * 
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public T get() throws InterruptedException {
+        return get(FOREVER);
+    }
+    
+    /**
+     * Takes the object, waiting up to the given timeout for one to be set if necessary.
+     * 
+     * @param timeout how long to wait at most
+     * 
+     * @return the object, or <code>null</code> if none was set in time
+     * 
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public T get(Duration timeout) throws InterruptedException {
+        return get(nanosOf(timeout));
+    }
+    
+    private final T get(long timeoutNanos) throws InterruptedException {
+        T object = tryGet();
+        if(object != null) {
+            return object;
+        }
+        
+        long deadline = System.nanoTime() + timeoutNanos;
+        Waiter waiter = new Waiter(Thread.currentThread(), null, 0);
+        waiting.incrementAndGet();
+        try {
+            while(true) {
+                //registered before checking once more, so a set in between cannot go unnoticed
+                waiters.add(waiter);
+                try {
+                    object = tryGet();
+                    if(object != null) {
+                        return object;
+                    }
+                    
+                    if(!park(timeoutNanos == FOREVER ? FOREVER : deadline - System.nanoTime())) {
+                        return tryGet(); //a last chance, as it may have been set just now
+                    }
+                } finally {
+                    waiters.remove(waiter); //unless a setter took it out already
+                }
+            }
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+    
+    /**
+     * Returns the current object with its version, without taking it.
+     * 
+     * @return the current object, or <code>null</code> if none was set yet
+     */
+    public Versioned<T> peek() {
+        return state.get().current;
+    }
+    
+    /**
+     * Returns the version of the current object
+     * 
+     * @return the version of the current object, <code>0</code> if none was set yet
+     */
+    public long version() {
+        return state.get().version();
+    }
+    
+    /**
+     * Waits until an object newer than the given version is set and returns it, without taking it.
+     * 
+     * @param version the last version seen by the caller
+     * @param timeout how long to wait at most
+     * 
+     * @return the newer object with its version, or <code>null</code> if none was set in time
+     * 
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public Versioned<T> getNewerThan(long version, Duration timeout) throws InterruptedException {
+        Versioned<T> current = state.get().current;
+        if(current != null && current.version() > version) {
+            return current;
+        }
+        
+        long timeoutNanos = nanosOf(timeout);
+        long deadline = System.nanoTime() + timeoutNanos;
+        Waiter waiter = new Waiter(Thread.currentThread(), null, version);
+        waiting.incrementAndGet();
+        try {
+            while(true) {
+                waiters.add(waiter);
+                try {
+                    current = state.get().current;
+                    if(current != null && current.version() > version) {
+                        return current;
+                    }
+                    
+                    if(!park(timeoutNanos == FOREVER ? FOREVER : deadline - System.nanoTime())) {
+                        current = state.get().current;
+                        return current != null && current.version() > version ? current : null;
+                    }
+                } finally {
+                    waiters.remove(waiter);
+                }
+            }
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+    
+    /**
+     * Returns a future completed with the first object newer than the given version, without taking it. The future is completed right away if there is such an object already.
+     * <p>The future is completed by the thread setting the object, so dependent stages should be run asynchronously if they take long. Cancelling the future stops waiting.
+     * 
+     * @param version the last version seen by the caller
+     * 
+     * @return a future of the newer object with its version
+     */
+    public CompletableFuture<Versioned<T>> newerThan(long version) {
+        CompletableFuture<Versioned<T>> future = new CompletableFuture<>();
+        
+        Versioned<T> current = state.get().current;
+        if(current != null && current.version() > version) {
+            future.complete(current);
+            return future;
+        }
+        
+        Waiter waiter = new Waiter(null, future, version);
+        waiting.incrementAndGet();
+        future.whenComplete((result, failure) -> { //also when cancelled
+            waiters.remove(waiter);
+            waiting.decrementAndGet();
+        });
+        waiters.add(waiter);
+        
+        current = state.get().current;
+        if(current != null && current.version() > version) {
+            future.complete(current); //may have been completed by the setter already, which does no harm
+        }
+        
+        return future;
+    }
+    
+    /**
+     * Returns whether any thread or future is waiting for an object.
+     * 
+     * @return whether there are waiters
+     */
+    public boolean isWaiting() {
+        return waiting.get() > 0;
+    }
+    
+    /* ************************************************************************
+     * WAITING
+     */
+    
+    /*
+     * wakes up all waiters; futures waiting for a later version are enqueued again
+     */
+    @SuppressWarnings("unchecked")
+    private final void wakeUp(Versioned<T> published) {
+        List<Waiter> later = null;
+        
+        Waiter waiter;
+        while((waiter = waiters.poll()) != null) {
+            if(waiter.thread != null) {
+                LockSupport.unpark(waiter.thread);
+            } else if(published.version() > waiter.version) {
+                ((CompletableFuture<Versioned<T>>)waiter.future).complete(published);
+            } else {
+                if(later == null) {
+                    later = new ArrayList<>();
+                }
+                later.add(waiter);
+            }
+        }
+        
+        if(later != null) {
+            for(Waiter future : later) {
+                waiters.add(future);
+                
+                //a newer object may have been set while it was out of the queue
+                Versioned<T> current = state.get().current;
+                if(current.version() > future.version) {
+                    ((CompletableFuture<Versioned<T>>)future.future).complete(current);
+                }
+                if(future.future.isDone()) { //completed or cancelled while it was out of the queue
+                    waiters.remove(future);
+                }
+            }
+        }
+    }
+    
+    /*
+     * parks the current thread until woken up, the timeout ran out or it was interrupted; false if the timeout ran out
+     */
+    private final boolean park(long remainingNanos) throws InterruptedException {
+        if(remainingNanos <= 0) {
+            return false;
+        }
+        
+        if(remainingNanos == FOREVER) {
+            LockSupport.park(this);
+        } else {
+            LockSupport.parkNanos(this, remainingNanos);
+        }
+        
+        if(Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        
+        return true;
+    }
+}
@@ -3,18 +3,31 @@ package org.crumbleworks.forge.crumbutil.datastructures;
 
 import static org.crumbleworks.forge.crumbutil.validation.Parameters.greaterOrEqual;
 
+import java.lang.reflect.Array;
 import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import org.crumbleworks.forge.crumbutil.util.MathUtil;
 
 /**
  * Creates a fixed size, circular {@link List}. New elements are added at the beginning, the oldest element gets dropped.
  * <p>Order of the list is youngest to oldest, <code>0</code> to <code>{@linkplain #size()} -1</code>
+ * <p>Optionally the capacity can be rounded up to a power of two, in which case indexes are mapped with a bitmask instead of being compared and wrapped, see {@link #HeadInRingBuffer(int, boolean)}.
  * <p>This class offers:
  * <ul>
  *     <li>add(E)</li>
  *     <li>get(int)</li>
  *     <li>size()</li>
+ *     <li>addAll(E[], int, int)</li>
+ *     <li>copyTo(Object[])</li>
+ *     <li>drainTo(Collection)</li>
+ *     <li>clear()</li>
+ *     <li>resize(int)</li>
  * </ul>
  * 
  * @see TailInRingBuffer
@@ -26,15 +39,23 @@ import java.util.List;
  */
 public class HeadInRingBuffer<E> extends AbstractList<E> {
 
-    private final int capacity;
+    private static final int NO_MASK = -1;
+    
+    private int capacity;
     private int size;
     
     /*
-     * The current offset for the indexes
+     * The current offset for the indexes; stays inside [0, capacity), except in power-of-two mode where it is a running
+     * sequence which is only ever masked and cannot realistically overflow
      */
-    int offset = 0;
+    long offset = 0;
+    
+    /*
+     * The mask to map indexes with in power-of-two mode, NO_MASK otherwise
+     */
+    private int mask;
 
-    private transient final Object[] data;
+    private transient Object[] data;
     
     /**
      * Constructs an empty ringbuffer with the specified capacity
@@ -44,9 +65,23 @@ public class HeadInRingBuffer<E> extends AbstractList<E> {
      * @throws IllegalArgumentException if the specified capacity is negative or zero
      */
     public HeadInRingBuffer(int capacity) {
+        this(capacity, false);
+    }
+    
+    /**
+     * Constructs an empty ringbuffer with at least the specified capacity
+     * <p>If <code>powerOfTwo</code> is set, the capacity is rounded up to the next power of two. This allows for {@link #get(int)} and {@link #add(Object)} to map indexes with a bitmask, rather than comparing and wrapping them.
+     * 
+     * @param capacity the capacity of the ringbuffer
+     * @param powerOfTwo whether to round the capacity up to the next power of two
+     * 
+     * @throws IllegalArgumentException if the specified capacity is negative or zero, or if there is no power of two for it
+     */
+    public HeadInRingBuffer(int capacity, boolean powerOfTwo) {
         if(capacity > 0) {
-            this.capacity = capacity;
-            this.data = new Object[capacity];
+            this.capacity = powerOfTwo ? MathUtil.nextPowerOfTwo(capacity) : capacity;
+            this.mask = powerOfTwo ? this.capacity - 1 : NO_MASK;
+            this.data = new Object[this.capacity];
             this.size = 0;
         } else {
             throw new IllegalArgumentException("Illegal Capacity: " + capacity);
@@ -66,6 +101,7 @@ public class HeadInRingBuffer<E> extends AbstractList<E> {
         
         if((size = cArr.length) > 0) {
             this.capacity = size;
+            this.mask = NO_MASK;
             data = new Object[capacity];
             
             int dataCursor = 0;
@@ -73,7 +109,6 @@ public class HeadInRingBuffer<E> extends AbstractList<E> {
             for( ; dataCursor < capacity ; dataCursor++, cArrCursor--) {
                 data[dataCursor] = cArr[cArrCursor];
             }
-            System.out.println();
         } else {
             throw new IllegalArgumentException("Illegal Capacity: " + size);
         }
@@ -101,22 +136,242 @@ public class HeadInRingBuffer<E> extends AbstractList<E> {
     
     @Override
     public boolean add(E element) {
+        if(mask != NO_MASK) {
+            //once full, the slot after the youngest element is the oldest one
+            int notFull = (size - capacity) >>> 31;
+            data[(int)(offset + size) & mask] = element;
+            size += notFull;
+            offset += notFull ^ 1;
+            return true;
+        }
+        
         if(size < capacity) {
             data[internalIndex(++size - 1)] = element;
             return true;
         }
         
-        offset++;
-        data[internalIndex(size -1)] = element;
+        data[(int)offset] = element;
+        if(++offset == capacity) {
+            offset = 0;
+        }
         return true;
     }
 
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        Object[] cArr = c.toArray();
+        addAllInternal(cArr, 0, cArr.length);
+        return cArr.length > 0;
+    }
+    
+    /**
+     * Adds the elements of the specified range of the array to the beginning of this ringbuffer, in the order they appear in the array, dropping the oldest elements as needed.
+     * <p>If the range holds more elements than fit into this ringbuffer, only the youngest ones of the range are kept. The elements are copied with at most two {@link System#arraycopy(Object, int, Object, int, int) array copies}.
+     * 
+     * @param src the array holding the elements to add
+     * @param off the index of the first element to add
+     * @param len the number of elements to add
+     * 
+     * @throws IndexOutOfBoundsException if the range lies outside of the array
+     * @throws NullPointerException if the specified array is <code>null</code>
+     */
+    public void addAll(E[] src, int off, int len) {
+        if(off < 0 || len < 0 || off > src.length - len) {
+            throw new IndexOutOfBoundsException("Range [" + off + ", " + off + " + " + len + ") is outside of an array of length " + src.length);
+        }
+        
+        addAllInternal(src, off, len);
+    }
+    
+    /**
+     * Copies all elements of this ringbuffer, youngest to oldest, into the specified array, starting at index <code>0</code>.
+     * 
+     * @param dest the array into which the elements are to be copied
+     * 
+     * @return the number of elements copied
+     * @throws IllegalArgumentException if the array is too small to hold all elements
+     * @throws ArrayStoreException if an element cannot be stored in the array
+     * @throws NullPointerException if the specified array is <code>null</code>
+     */
+    public int copyTo(Object[] dest) {
+        if(dest.length < size) {
+            throw new IllegalArgumentException("Array of length " + dest.length + " cannot hold " + size + " elements.");
+        }
+        
+        int oldest = internalIndex(0);
+        int firstPart = capacity - oldest;
+        if(size <= firstPart) {
+            System.arraycopy(data, oldest, dest, 0, size);
+        } else { //wrapping, copy the oldest elements up to the end of the array first
+            System.arraycopy(data, oldest, dest, 0, firstPart);
+            System.arraycopy(data, 0, dest, firstPart, size - firstPart);
+        }
+        
+        //elements are stored oldest to youngest, so turn them around in place
+        for(int lo = 0, hi = size - 1 ; lo < hi ; lo++, hi--) {
+            Object swap = dest[lo];
+            dest[lo] = dest[hi];
+            dest[hi] = swap;
+        }
+        
+        return size;
+    }
+    
+    @Override
+    public Object[] toArray() {
+        Object[] arr = new Object[size];
+        copyTo(arr);
+        return arr;
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T[] toArray(T[] a) {
+        if(a.length < size) {
+            a = (T[])Array.newInstance(a.getClass().getComponentType(), size);
+        } else if(a.length > size) {
+            a[size] = null;
+        }
+        
+        copyTo(a);
+        return a;
+    }
+    
+    /**
+     * Moves all elements of this ringbuffer, youngest to oldest, into the specified collection and empties this ringbuffer.
+     * <p>The elements are added straight from the internal array, without copying them into an intermediate array first.
+     * 
+     * @param c the collection to add the elements to
+     * 
+     * @return the number of elements moved
+     * @throws NullPointerException if the specified collection is <code>null</code>
+     * @throws IllegalArgumentException if the specified collection is this ringbuffer
+     */
+    @SuppressWarnings("unchecked")
+    public int drainTo(Collection<? super E> c) {
+        if(Objects.requireNonNull(c) == this) {
+            throw new IllegalArgumentException("Cannot drain a ringbuffer into itself.");
+        }
+        
+        //elements are stored oldest to youngest, so we walk backwards from the youngest one
+        int oldest = internalIndex(0);
+        int firstPart = Math.min(size, capacity - oldest);
+        for(int i = size - firstPart - 1 ; i >= 0 ; i--) {
+            c.add((E)data[i]);
+        }
+        for(int i = oldest + firstPart - 1 ; i >= oldest ; i--) {
+            c.add((E)data[i]);
+        }
+        
+        int drained = size;
+        clear();
+        return drained;
+    }
+    
+    /**
+     * Empties this ringbuffer. The capacity is kept.
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(data, null);
+        size = 0;
+        offset = 0;
+    }
+    
+    /**
+     * Returns a {@link Spliterator} over the elements of this ringbuffer, youngest to oldest.
+     * <p>The spliterator splits at the wrap point of the internal array first, so parallel streams work on contiguous segments of it.
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        int oldest = internalIndex(0);
+        return new RingBufferSpliterator<>(data, oldest, (long)oldest + size, true);
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        Objects.requireNonNull(action);
+        
+        //elements are stored oldest to youngest, so we walk backwards from the youngest one
+        int oldest = internalIndex(0);
+        int firstPart = Math.min(size, capacity - oldest);
+        for(int i = size - firstPart - 1 ; i >= 0 ; i--) {
+            action.accept((E)data[i]);
+        }
+        for(int i = oldest + firstPart - 1 ; i >= oldest ; i--) {
+            action.accept((E)data[i]);
+        }
+    }
+    
+    /**
+     * Changes the capacity of this ringbuffer, keeping the order of its elements. If the new capacity is smaller than the size, only the youngest elements are kept.
+     * <p>The elements are moved into a new internal array with at most two {@link System#arraycopy(Object, int, Object, int, int) array copies}. In power-of-two mode the new capacity is rounded up to the next power of two as well.
+     * 
+     * @param newCapacity the new capacity of the ringbuffer
+     * 
+     * @throws IllegalArgumentException if the specified capacity is negative or zero, or if there is no power of two for it in power-of-two mode
+     */
+    public void resize(int newCapacity) {
+        if(newCapacity <= 0) {
+            throw new IllegalArgumentException("Illegal Capacity: " + newCapacity);
+        }
+        if(mask != NO_MASK) {
+            newCapacity = MathUtil.nextPowerOfTwo(newCapacity);
+        }
+        
+        int kept = Math.min(size, newCapacity);
+        Object[] resized = new Object[newCapacity];
+        
+        //the kept elements start at the oldest one which survives and may wrap around the end of the old array
+        int from = internalIndex(size - kept);
+        int firstPart = Math.min(kept, capacity - from);
+        System.arraycopy(data, from, resized, 0, firstPart);
+        System.arraycopy(data, 0, resized, firstPart, kept - firstPart);
+        
+        data = resized;
+        capacity = newCapacity;
+        if(mask != NO_MASK) {
+            mask = newCapacity - 1;
+        }
+        size = kept;
+        offset = 0;
+    }
+    
+    /*
+     * adds the elements to the internal array, which holds them oldest to youngest, with at most two array copies
+     */
+    private final void addAllInternal(Object[] src, int off, int len) {
+        if(len >= capacity) { //only the youngest elements of the range survive
+            System.arraycopy(src, off + len - capacity, data, 0, capacity);
+            size = capacity;
+            offset = 0;
+            return;
+        }
+        
+        int next = internalIndex(size); //slot after the youngest element, which is the oldest one once full
+        int firstPart = Math.min(len, capacity - next);
+        System.arraycopy(src, off, data, next, firstPart);
+        System.arraycopy(src, off + firstPart, data, 0, len - firstPart);
+        
+        int dropped = Math.max(0, size + len - capacity);
+        size += len - dropped;
+        offset += dropped;
+        if(mask == NO_MASK && offset >= capacity) {
+            offset -= capacity;
+        }
+    }
+    
     /*
      * conversion method to map an index to the index of the internal array
      */
     private final int internalIndex(int i) {
-        int res;
-        return (res = i + offset) >= capacity ? res - capacity : res;
+        if(mask != NO_MASK) {
+            return (int)(offset + i) & mask;
+        }
+        
+        long res;
+        return (int)((res = i + offset) >= capacity ? res - capacity : res);
     }
     
     /*
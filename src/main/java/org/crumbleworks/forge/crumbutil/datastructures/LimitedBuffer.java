@@ -1,27 +1,84 @@
 package org.crumbleworks.forge.crumbutil.datastructures;
 
+import static org.crumbleworks.forge.crumbutil.validation.Parameters.greaterOrEqual;
 import static org.crumbleworks.forge.crumbutil.validation.Parameters.notNull;
 
+import java.io.IOException;
 import java.lang.reflect.Array;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+
+import org.crumbleworks.forge.crumbutil.callbacks.ParameterizedCallback;
+import org.crumbleworks.forge.crumbutil.util.MathUtil;
 
 /**
  * A limited buffer, that will evict the oldest element once it reaches capacity.
  * 
+ * <p>Optionally the capacity can be rounded up to a power of two, in which case positions in the backing buffer are
+ * mapped with a bitmask instead of being compared and wrapped, see
+ * {@link #LimitedBuffer(int, boolean, Class, Class)}.
+ * 
+ * <p>By default reads and writes are guarded by a fair read-write lock. For
+ * buffers which are read far more often than written to, reads can be made
+ * optimistic instead, see {@link LockingMode#OPTIMISTIC_READ}.
+ * 
+ * <p>Instead of polling for new entries, consumers can follow the buffer
+ * with a {@link Cursor}, waiting for entries to be written past it, see
+ * {@link #awaitNext(Cursor, Duration)}. Any number of consumers can follow
+ * the same buffer, each with its own cursor, reading the entries written
+ * once. Consumers which must not miss any entries can use a
+ * {@link #gatingCursor()}, which holds up writers instead.
+ * 
+ * <p>What a write does if it would overwrite an entry which has not been
+ * consumed yet is decided by its {@link OverflowPolicy}.
+ * 
+ * <p>To keep the recent history across crashes, written entries can be
+ * journaled to disk in the background, see {@link LimitedBufferJournal}.
+ * 
  * @author Michael Stocker
  * @since 0.6.10
  * 
  * @param <E> the element held by this buffer
  */
 public class LimitedBuffer<E> {
-    private final ReadWriteLock lock = new ReentrantReadWriteLock(true);
+    private static final int NO_MASK = -1;
+    private static final Cursor[] NO_CURSORS = new Cursor[0];
+    
+    private final ReadWriteLock lock;
+    /**
+     * The lock to read optimistically with in
+     * {@link LockingMode#OPTIMISTIC_READ}, <code>null</code> otherwise
+     */
+    private final StampedLock stampedLock;
+    /**
+     * The array {@link #forEachRecent(int, ParameterizedCallback)} copies
+     * into in {@link LockingMode#OPTIMISTIC_READ}, reused by every thread,
+     * <code>null</code> in other modes
+     */
+    private final ThreadLocal<Object[]> scratch;
     
     private final Class<E> type;
     private final Class<E[]> arrtype;
     
-    private final Object[] buffer;
+    private Object[] buffer;
+    /**
+     * Whether the capacity is kept at a power of two; unlike the mask never
+     * changes, so it can be checked without holding the lock
+     */
+    private final boolean powerOfTwo;
+    /**
+     * The mask to map positions with in power-of-two mode,
+     * <code>NO_MASK</code> otherwise; replaced by {@link #resize(int)}
+     */
+    private int mask;
     /**
      * The oldest element in this buffer
      */
@@ -34,6 +91,44 @@ public class LimitedBuffer<E> {
      * The amount of elements currently in this buffer
      */
     private int size = 0;
+    /**
+     * The amount of elements ever written to this buffer, which makes it the
+     * sequence of the next element
+     */
+    private volatile long written = 0;
+    
+    /**
+     * Cursors which writers have to wait for before overwriting an entry;
+     * replaced as a whole on changes
+     */
+    private volatile Cursor[] gatingCursors = NO_CURSORS;
+    
+    /**
+     * The amount of consumers waiting for the next write, so writers only
+     * signal if there is anyone to wake up
+     */
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final ReentrantLock signalLock = new ReentrantLock();
+    private final Condition published = signalLock.newCondition();
+    /**
+     * The amount of writers waiting for gating cursors to move on
+     */
+    private final AtomicInteger blockedWriters = new AtomicInteger();
+    private final Condition consumed = signalLock.newCondition();
+    
+    private final OverflowPolicy overflow;
+    
+    /**
+     * The journal written entries are passed on to, <code>null</code> if
+     * there is none
+     */
+    private LimitedBufferJournal<? super E> journal = null;
+    /*
+     * Counters of the overflow policy, only changed under the write lock
+     */
+    private volatile long droppedWrites = 0;
+    private volatile long blockedWrites = 0;
+    private volatile long rejectedWrites = 0;
     
     /**
      * Initializes a buffer with the given capacity.
@@ -42,25 +137,207 @@ public class LimitedBuffer<E> {
      * @param type the type of elements stored in this buffer
      */
     public LimitedBuffer(int capacity, Class<E> type, Class<E[]> arrtype) {
+        this(capacity, false, type, arrtype);
+    }
+    
+    /**
+     * Initializes a buffer with at least the given capacity.
+     * 
+     * <p>If <code>powerOfTwo</code> is set, the capacity is rounded up to
+     * the next power of two. This allows for writes and reads to map
+     * positions in the backing buffer with a bitmask, rather than comparing
+     * and wrapping them.
+     * 
+     * @param capacity the capacity in elements
+     * @param powerOfTwo whether to round the capacity up to the next power
+     *        of two
+     * @param type the type of elements stored in this buffer
+     * 
+     * @throws IllegalArgumentException if <code>powerOfTwo</code> is set and
+     *         there is no power of two for the given capacity
+     */
+    public LimitedBuffer(int capacity, boolean powerOfTwo, Class<E> type, Class<E[]> arrtype) {
+        this(capacity, powerOfTwo, LockingMode.FAIR, type, arrtype);
+    }
+    
+    /**
+     * Initializes a buffer with at least the given capacity, guarded by the
+     * given locking mode.
+     * 
+     * @param capacity the capacity in elements
+     * @param powerOfTwo whether to round the capacity up to the next power
+     *        of two
+     * @param locking how reads and writes are guarded
+     * @param type the type of elements stored in this buffer
+     * 
+     * @throws IllegalArgumentException if <code>powerOfTwo</code> is set and
+     *         there is no power of two for the given capacity
+     * 
+     * @see #LimitedBuffer(int, boolean, Class, Class)
+     */
+    public LimitedBuffer(int capacity, boolean powerOfTwo, LockingMode locking, Class<E> type, Class<E[]> arrtype) {
+        this(capacity, powerOfTwo, locking, OverflowPolicy.OVERWRITE_OLDEST, type, arrtype);
+    }
+    
+    /**
+     * Initializes a buffer with at least the given capacity, guarded by the
+     * given locking mode, which handles writes to a full buffer according
+     * to the given overflow policy.
+     * 
+     * @param capacity the capacity in elements
+     * @param powerOfTwo whether to round the capacity up to the next power
+     *        of two
+     * @param locking how reads and writes are guarded
+     * @param overflow what a write does if it would overwrite an entry which
+     *        has not been consumed
+     * @param type the type of elements stored in this buffer
+     * 
+     * @throws IllegalArgumentException if <code>powerOfTwo</code> is set and
+     *         there is no power of two for the given capacity
+     * 
+     * @see #LimitedBuffer(int, boolean, LockingMode, Class, Class)
+     */
+    public LimitedBuffer(int capacity, boolean powerOfTwo, LockingMode locking, OverflowPolicy overflow, Class<E> type, Class<E[]> arrtype) {
         this.type = notNull(type);
         this.arrtype = notNull(arrtype);
-        buffer = new Object[capacity];
+        this.overflow = notNull(overflow);
+        
+        if(notNull(locking) == LockingMode.OPTIMISTIC_READ) {
+            stampedLock = new StampedLock();
+            lock = stampedLock.asReadWriteLock();
+            scratch = new ThreadLocal<>();
+        } else {
+            stampedLock = null;
+            lock = new ReentrantReadWriteLock(true);
+            scratch = null;
+        }
+        
+        this.powerOfTwo = powerOfTwo;
+        if(powerOfTwo) {
+            buffer = new Object[MathUtil.nextPowerOfTwo(capacity)];
+            mask = buffer.length - 1;
+        } else {
+            buffer = new Object[capacity];
+            mask = NO_MASK;
+        }
+    }
+    
+    /**
+     * Rebuilds a buffer from the journal in the given directory, holding the
+     * last <code>capacity</code> entries that were journaled.
+     * 
+     * <p>The returned buffer is not journaled itself; to continue the
+     * journal, open it again and pass it to
+     * {@link #setJournal(LimitedBufferJournal)}.
+     * 
+     * @param directory the directory holding the journal
+     * @param capacity the capacity in elements
+     * @param codec converts the journaled bytes back to elements
+     * @param type the type of elements stored in this buffer
+     * 
+     * @return the recovered buffer, empty if there is no journal in the
+     *         directory
+     * 
+     * @throws IOException if the journal cannot be read
+     * 
+     * @see LimitedBufferJournal#replay(Path, LimitedBufferJournal.Codec, ParameterizedCallback)
+     */
+    public static <E> LimitedBuffer<E> recover(Path directory, int capacity, LimitedBufferJournal.Codec<? extends E> codec, Class<E> type, Class<E[]> arrtype) throws IOException {
+        LimitedBuffer<E> buffer = new LimitedBuffer<>(capacity, type, arrtype);
+        LimitedBufferJournal.replay(directory, codec, buffer::write);
+        return buffer;
+    }
+    
+    /**
+     * Journals all entries written to this buffer from now on to the given
+     * journal, replacing the previous one. Writes only queue their elements
+     * for the journal, they never wait for the disk.
+     * 
+     * @param journal the journal to use, <code>null</code> to stop
+     *        journaling
+     * 
+     * @throws IllegalStateException if the journal is used by another buffer
+     *         already
+     */
+    public void setJournal(LimitedBufferJournal<? super E> journal) {
+        try {
+            lock.writeLock().lock();
+            
+            if(journal != null && journal != this.journal) {
+                journal.attach();
+            }
+            if(this.journal != null && this.journal != journal) {
+                this.journal.detach();
+            }
+            
+            this.journal = journal;
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
     
     /**
      * Writes the given element to this buffer.
      * 
+     * <p>If the buffer is full and the oldest entry has not been consumed
+     * yet, the {@link OverflowPolicy} of this buffer decides whether the
+     * element is written, see {@link OverflowPolicy}. Use
+     * {@link #offer(Object)} to find out whether it was dropped.
+     * 
      * @param element the element to be written to this buffer
+     * 
+     * @throws IllegalStateException if the element was rejected by the
+     *         {@link OverflowPolicy#REJECT} policy
      */
     public void write(final E element) {
+        offer(element);
+    }
+    
+    /**
+     * Writes the given element to this buffer, like {@link #write(Object)},
+     * and reports whether the {@link OverflowPolicy} dropped it.
+     * 
+     * @param element the element to be written to this buffer
+     * 
+     * @return whether the element was written, <code>false</code> if it was
+     *         dropped by the overflow policy
+     * 
+     * @throws IllegalStateException if the element was rejected by the
+     *         {@link OverflowPolicy#REJECT} policy
+     * 
+     * @since 0.8.0
+     */
+    public boolean offer(final E element) {
         try {
             lock.writeLock().lock();
             
             notNull(element);
             
+            if(!hasRoom() && !overflow(element)) {
+                return false;
+            }
+            
+            if(journal != null) {
+                journal.append(element);
+            }
+            
+            written++; //only ever changed under the write lock
+            
+            if(mask != NO_MASK) {
+                //once full head and tail overlap and head has to move along
+                int notFull = (size - buffer.length) >>> 31;
+                
+                buffer[tail] = element;
+                
+                tail = (tail + 1) & mask;
+                head = (head + (notFull ^ 1)) & mask;
+                size += notFull;
+                return true;
+            }
+            
             if(size == buffer.length
             && head == tail) { //we overlap, shift head ahead
-                head = (head + 1) % buffer.length;
+                head = wrap(head + 1);
                 
                 size--;
             }
@@ -68,12 +345,147 @@ public class LimitedBuffer<E> {
             buffer[tail] = element;
             
             //shift tail for next write, break at buffer.length
-            tail = (tail + 1) % buffer.length;
+            tail = wrap(tail + 1);
             
             size++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+            
+            signalWaiters();
+        }
+    }
+    
+    /**
+     * Writes the elements of the specified range of the array to this
+     * buffer, in the order they appear in the array.
+     * 
+     * <p>The elements are checked once up front and written under a single
+     * acquisition of the write lock, with at most two copies. If the range
+     * holds more elements than fit into the buffer, only the newest ones are
+     * kept.
+     * 
+     * <p>Elements which would overwrite entries that have not been consumed
+     * yet are handled by the {@link OverflowPolicy} of this buffer, one
+     * after the other. Once the policy drops an element, the rest of the
+     * range is dropped as well. Elements written before the policy rejected
+     * one stay written.
+     * 
+     * @param batch the array holding the elements to write
+     * @param off the index of the first element to write
+     * @param len the number of elements to write
+     * 
+     * @return the number of elements written
+     * 
+     * @throws IndexOutOfBoundsException if the range lies outside of the
+     *         array
+     * @throws IllegalArgumentException if an element of the range is
+     *         <code>null</code>
+     * @throws IllegalStateException if an element was rejected by the
+     *         {@link OverflowPolicy#REJECT} policy
+     */
+    public int writeAll(E[] batch, int off, int len) {
+        notNull(batch);
+        if(off < 0 || len < 0 || off > batch.length - len) {
+            throw new IndexOutOfBoundsException("Range [" + off + ", " + off
+                                              + " + " + len + ") is outside "
+                                              + "of an array of length "
+                                              + batch.length);
+        }
+        
+        return writeAllInternal(batch, off, len);
+    }
+    
+    /**
+     * Writes the elements of the given collection to this buffer, in the
+     * order of its iterator, see {@link #writeAll(Object[], int, int)}.
+     * 
+     * @param batch the collection holding the elements to write
+     * 
+     * @return the number of elements written
+     * 
+     * @throws IllegalArgumentException if an element is <code>null</code>
+     * @throws IllegalStateException if an element was rejected by the
+     *         {@link OverflowPolicy#REJECT} policy
+     */
+    public int writeAll(Collection<? extends E> batch) {
+        Object[] elements = notNull(batch).toArray();
+        return writeAllInternal(elements, 0, elements.length);
+    }
+    
+    private final int writeAllInternal(Object[] batch, int off, int len) {
+        for(int i = off ; i < off + len ; i++) {
+            notNull(batch[i]);
+        }
+        
+        int done = 0;
+        try {
+            lock.writeLock().lock();
+            
+            while(done < len) {
+                int room = room();
+                if(room == 0) {
+                    @SuppressWarnings("unchecked")
+                    E element = (E) batch[off + done];
+                    if(!overflow(element)) { //dropped, so is the rest
+                        droppedWrites += len - done - 1;
+                        break;
+                    }
+                    
+                    room = room();
+                }
+                
+                int chunk = Math.min(room, len - done);
+                copyIn(batch, off + done, chunk);
+                done += chunk;
+            }
+            
+            return done;
         } finally {
             lock.writeLock().unlock();
+            
+            if(done > 0) {
+                signalWaiters();
+            }
+        }
+    }
+    
+    /**
+     * Copies elements into the backing buffer behind the newest entry, with
+     * at most two copies, overwriting the oldest entries as needed. Must be
+     * called holding the write lock.
+     * 
+     * @param src the array holding the elements
+     * @param off the index of the first element to copy
+     * @param len the number of elements to copy
+     */
+    @SuppressWarnings("unchecked")
+    private final void copyIn(Object[] src, int off, int len) {
+        if(journal != null) {
+            for(int i = off ; i < off + len ; i++) {
+                journal.append((E) src[i]);
+            }
+        }
+        
+        written += len;
+        
+        if(len >= buffer.length) { //only the newest ones survive
+            System.arraycopy(src, off + len - buffer.length, buffer, 0, buffer.length);
+            
+            head = 0;
+            tail = head;
+            
+            size = buffer.length;
+            return;
         }
+        
+        int firstPart = Math.min(len, buffer.length - tail);
+        System.arraycopy(src, off, buffer, tail, firstPart);
+        System.arraycopy(src, off + firstPart, buffer, 0, len - firstPart);
+        
+        tail = wrap(tail + len);
+        size = Math.min(size + len, buffer.length);
+        head = wrap(tail - size + buffer.length);
     }
     
     /**
@@ -91,6 +503,57 @@ public class LimitedBuffer<E> {
             size = 0;
         } finally {
             lock.writeLock().unlock();
+            
+            signalBlockedWriters();
+        }
+    }
+    
+    /**
+     * Changes the capacity of this buffer, keeping the order of its
+     * elements. If the new capacity is smaller than the current size, only
+     * the newest elements are kept.
+     * 
+     * <p>The new backing buffer is allocated before the write lock is taken,
+     * so readers are only blocked while the elements are copied over, which
+     * takes at most two copies. In power-of-two mode the new capacity is
+     * rounded up to the next power of two as well.
+     * 
+     * @param newCapacity the new capacity in elements
+     * 
+     * @throws IllegalArgumentException if the new capacity is negative or
+     *         zero, or if there is no power of two for it in power-of-two
+     *         mode
+     */
+    public void resize(int newCapacity) {
+        if(newCapacity <= 0) {
+            throw new IllegalArgumentException("Illegal Capacity: " + newCapacity);
+        }
+        
+        Object[] resized = new Object[powerOfTwo ? MathUtil.nextPowerOfTwo(newCapacity) : newCapacity];
+        
+        try {
+            lock.writeLock().lock();
+            
+            //the kept entries start at the oldest one which survives and may wrap around the end of the backing buffer
+            int kept = Math.min(size, resized.length);
+            int from = slot(size - kept);
+            int firstPart = Math.min(kept, buffer.length - from);
+            System.arraycopy(buffer, from, resized, 0, firstPart);
+            System.arraycopy(buffer, 0, resized, firstPart, kept - firstPart);
+            
+            buffer = resized;
+            if(powerOfTwo) {
+                mask = resized.length - 1;
+            }
+            
+            head = 0;
+            tail = kept == resized.length ? 0 : kept;
+            
+            size = kept;
+        } finally {
+            lock.writeLock().unlock();
+            
+            signalBlockedWriters();
         }
     }
     
@@ -100,6 +563,19 @@ public class LimitedBuffer<E> {
      * @return the stored element or <code>null</code>
      */
     public E read() {
+        if(stampedLock != null) {
+            long stamp = stampedLock.tryOptimisticRead();
+            
+            Object[] buffer = this.buffer;
+            int head = this.head;
+            int size = this.size;
+            
+            Object res = size == 0 || !consistent(buffer, head, size) ? null : buffer[position(buffer, head, size - 1)];
+            if(stampedLock.validate(stamp)) {
+                return (E) res;
+            }
+        }
+        
         try {
             lock.readLock().lock();
             
@@ -107,12 +583,7 @@ public class LimitedBuffer<E> {
                 return null;
             }
             
-            int index = tail - 1;
-            if(index < 0) {
-                index += size;
-            }
-            
-            return (E) buffer[index];
+            return (E) buffer[slot(size - 1)];
         } finally {
             lock.readLock().unlock();
         }
@@ -127,23 +598,32 @@ public class LimitedBuffer<E> {
      *         <code>entries</code>
      */
     public E[] read(int entries) {
-        try {
-            lock.readLock().lock();
+        greaterOrEqual(entries, 0);
+        
+        if(stampedLock != null) {
+            long stamp = stampedLock.tryOptimisticRead();
+            
+            Object[] buffer = this.buffer;
+            int head = this.head;
+            int size = this.size;
             
-            if(size == 0) { //empty
-                return (E[]) Array.newInstance(type, 0);
+            if(consistent(buffer, head, size)) {
+                int copied = Math.min(entries, size);
+                E[] res = copyOf(buffer, head, size - copied, copied);
+                if(stampedLock.validate(stamp)) {
+                    return res;
+                }
             }
+        }
+        
+        try {
+            lock.readLock().lock();
             
-            int index = tail - entries;
-            if(index < 0) {
-                index += size;
+            if(entries > size) {
+                entries = size;
             }
             
-            return (E[]) readFrom(entries,
-                                  0,
-                                  index, 
-                                  tail,
-                                  0);
+            return copyOf(buffer, head, size - entries, entries);
         } finally {
             lock.readLock().unlock();
         }
@@ -156,26 +636,37 @@ public class LimitedBuffer<E> {
      * 
      * @return the stored element
      * 
-     * @throws IndexOutOfBoundsException if the entryIndex is higher than
-     *         {@link #getSize() size - 1}
+     * @throws IndexOutOfBoundsException if the entryIndex is negative or
+     *         higher than {@link #getSize() size - 1}
      */
     public E readFrom(int entryIndex) {
-        if(entryIndex > (size - 1)) {
+        if(entryIndex < 0 || entryIndex > (size - 1)) {
             throw new IndexOutOfBoundsException("Cannot read from index "
                                               + entryIndex + ", highest "
                                               + "possible index is "
                                               + (size - 1));
         }
         
-        try {
-            lock.readLock().lock();
+        if(stampedLock != null) {
+            long stamp = stampedLock.tryOptimisticRead();
             
-            if(size < buffer.length) { //not yet wrapping
-                return (E) buffer[entryIndex];
+            Object[] buffer = this.buffer;
+            int head = this.head;
+            int size = this.size;
+            
+            //the buffer may have shrunk since the index was checked
+            if(entryIndex < size && consistent(buffer, head, size)) {
+                Object res = buffer[position(buffer, head, entryIndex)];
+                if(stampedLock.validate(stamp)) {
+                    return (E) res;
+                }
             }
+        }
+        
+        try {
+            lock.readLock().lock();
             
-            //wrapping
-            return (E) buffer[(head + entryIndex) % size];
+            return (E) buffer[slot(entryIndex)];
         } finally {
             lock.readLock().unlock();
         }
@@ -191,111 +682,1016 @@ public class LimitedBuffer<E> {
      * @return an array of elements with a length between <code>0</code> and
      *         <code>entries</code>
      * 
-     * @throws IndexOutOfBoundsException if the entryIndex is higher than
-     *         {@link #getSize() size - 1}
+     * @throws IndexOutOfBoundsException if the entryIndex is negative or
+     *         higher than {@link #getSize() size - 1}
+     * @throws IllegalArgumentException if entries is negative
      */
     public E[] readFrom(int entryIndex, int entries) {
-        if(entryIndex > (size - 1)) {
+        greaterOrEqual(entries, 0);
+        
+        if(entryIndex < 0 || entryIndex > (size - 1)) {
             throw new IndexOutOfBoundsException("Cannot read from index "
                                               + entryIndex + ", highest "
                                               + "possible index is "
                                               + (size - 1));
         }
         
+        if(stampedLock != null) {
+            long stamp = stampedLock.tryOptimisticRead();
+            
+            Object[] buffer = this.buffer;
+            int head = this.head;
+            int size = this.size;
+            
+            if(entryIndex < size && consistent(buffer, head, size)) {
+                E[] res = copyOf(buffer, head, entryIndex, Math.min(entries, size - entryIndex));
+                if(stampedLock.validate(stamp)) {
+                    return res;
+                }
+            }
+        }
+        
         try{
             lock.readLock().lock();
             
-            int endIndex = entryIndex + entries;
-            if(endIndex > size) {
-                endIndex = size;
+            if(entries > size - entryIndex) {
+                entries = size - entryIndex;
             }
             
-            return (E[]) readFrom(entries,
-                                  head,
-                                  entryIndex,
-                                  endIndex,
-                                  entryIndex);
+            return copyOf(buffer, head, entryIndex, entries);
         } finally {
             lock.readLock().unlock();
         }
     }
     
     /**
-     * Retrieves entries from the backing buffer based on the provided
-     * parameters.
+     * Reads up to the last <i>n</i> entries from the buffer into the given
+     * array, oldest first, where <i>n</i> is the room left in the array
+     * after <code>off</code>. Unlike {@link #read(int)} nothing is
+     * allocated, so callers reading at a high rate can reuse their array.
      * 
-     * <p>There are two common prefixes for parameters: <code>top</code>,
-     * which denotes parameters that modify the behaviour for retrieving less
-     * entries than there are in the buffer, and <code>bot</code>, which
-     * denotes parameters that modify the behaviour for retrieving the whole
-     * buffer.
+     * @param dest the array to read into
+     * @param off the position in the array to put the first entry at
      * 
-     * @param entries the amount of entries that are requested
+     * @return the number of entries read, between <code>0</code> and
+     *         <code>dest.length - off</code>
      * 
-     * @param topIndexOffset offsets the topIndex when less entries are
-     *        requested than the backing buffer holds
-     * @param topIndex the index from which to start when retrieving less
-     *        elements than the buffer contains
-     * @param topRange the exclusive range to which elements should be copied
-     *        if the buffer is not yet wrapping
+     * @throws IndexOutOfBoundsException if off is negative or past the end
+     *         of the array
+     */
+    public int readInto(E[] dest, int off) {
+        notNull(dest);
+        if(off < 0 || off > dest.length) {
+            throw new IndexOutOfBoundsException("Cannot read into index "
+                                              + off + " of an array of "
+                                              + "length " + dest.length);
+        }
+        
+        return readRecentInto(dest, off, dest.length - off);
+    }
+    
+    /**
+     * Copies up to the last <code>room</code> entries into the given array,
+     * oldest first, see {@link #readInto(Object[], int)}.
      * 
-     * @param botIndex the index from which to start when requesting items
-     *        equal to the buffer-size or even more; this index is adjusted
-     *        by the position of the <code>head</code> internally, so no
-     *        additional attention is needed
+     * @param dest the array to copy into
+     * @param off the position in the array to put the first entry at
+     * @param room the number of entries to copy at most, which the array
+     *        must have room for
      * 
-     * @return an array of elements with a length between <code>0</code> and
-     *         <code>entries</code>
+     * @return the number of entries copied
      */
-    @SuppressWarnings("unchecked")
-    private final E[] readFrom(int entries, int topIndexOffset, int topIndex, int topRange, int botIndex) {
-        if(entries < size) { //less entries than size
-            if(size < buffer.length) { //buffer not yet full
-                return (E[]) Arrays.copyOfRange(buffer, topIndex, topRange, arrtype);
-            }
+    private final int readRecentInto(Object[] dest, int off, int room) {
+        if(stampedLock != null) {
+            long stamp = stampedLock.tryOptimisticRead();
             
-            int resultSize = topRange - topIndex;
-            if(resultSize < 0) {
-                resultSize += size;
-            }
+            Object[] buffer = this.buffer;
+            int head = this.head;
+            int size = this.size;
             
-            E[] res = (E[]) Array.newInstance(type, resultSize);
-            for(int i = 0 ; i < res.length ; i++) {
-                res[i] = (E) buffer[(topIndexOffset + topIndex + i) % size];
+            if(consistent(buffer, head, size)) {
+                int copied = Math.min(room, size);
+                copyInto(buffer, head, size - copied, copied, dest, off);
+                if(stampedLock.validate(stamp)) {
+                    return copied;
+                }
             }
-            
-            return res;
         }
         
-        //entries equal or surpass size
-        if(size < buffer.length) { //buffer not yet full
-            return (E[]) Arrays.copyOf(buffer, size, arrtype);
+        try {
+            lock.readLock().lock();
+            
+            int copied = Math.min(room, size);
+            copyInto(buffer, head, size - copied, copied, dest, off);
+            return copied;
+        } finally {
+            lock.readLock().unlock();
         }
+    }
+    
+    /**
+     * Reads entries, starting with the supplied index, from the buffer into
+     * the given array, until either the array is full or there are no more
+     * entries. Unlike {@link #readFrom(int, int)} nothing is allocated.
+     * 
+     * @param entryIndex the index from which to start reading
+     * @param dest the array to read into, starting at its beginning
+     * 
+     * @return the number of entries read, between <code>0</code> and
+     *         <code>dest.length</code>
+     * 
+     * @throws IndexOutOfBoundsException if the entryIndex is negative or
+     *         higher than {@link #getSize() size - 1}
+     */
+    public int readFromInto(int entryIndex, E[] dest) {
+        notNull(dest);
         
-        int botSize = size - botIndex;
-        if(botSize > entries) {
-            botSize = entries;
+        if(entryIndex < 0 || entryIndex > (size - 1)) {
+            throw new IndexOutOfBoundsException("Cannot read from index "
+                                              + entryIndex + ", highest "
+                                              + "possible index is "
+                                              + (size - 1));
         }
         
-        E[] res = (E[]) Array.newInstance(type, botSize);
-        for(int i = 0 ; i < res.length ; i++) {
-            res[i] = (E) buffer[(head + botIndex + i) % size];
+        if(stampedLock != null) {
+            long stamp = stampedLock.tryOptimisticRead();
+            
+            Object[] buffer = this.buffer;
+            int head = this.head;
+            int size = this.size;
+            
+            if(entryIndex < size && consistent(buffer, head, size)) {
+                int copied = Math.min(dest.length, size - entryIndex);
+                copyInto(buffer, head, entryIndex, copied, dest, 0);
+                if(stampedLock.validate(stamp)) {
+                    return copied;
+                }
+            }
         }
         
-        return res;
+        try {
+            lock.readLock().lock();
+            
+            int copied = Math.min(dest.length, size - entryIndex);
+            copyInto(buffer, head, entryIndex, copied, dest, 0);
+            return copied;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
     
     /**
-     * @return the amount of rows containing data
+     * Passes up to the last <i>n</i> entries of the buffer to the given
+     * callback, oldest first, without copying them.
+     * 
+     * <p>The read lock is held while the callback runs, so writers wait
+     * until all entries have been visited. The callback should be short and
+     * must not write to this buffer. In {@link LockingMode#OPTIMISTIC_READ}
+     * the read lock is not reentrant, so there the entries are copied first,
+     * into an array kept per thread and reused, and the callback runs
+     * without holding it, free to read this buffer again.
+     * 
+     * @param entries the number of entries to visit
+     * @param callback called with every visited entry
+     * 
+     * @return the number of entries visited
      */
-    public int getSize() {
-        return size;
-    }
-    
+    @SuppressWarnings("unchecked")
+    public int forEachRecent(int entries, ParameterizedCallback<? super E> callback) {
+        greaterOrEqual(entries, 0);
+        notNull(callback);
+        
+        if(stampedLock != null) {
+            //taken while the callback runs, so a nested visit copies into an array of its own
+            Object[] snapshot = scratch.get();
+            scratch.set(null);
+            
+            //a stale capacity only means visiting the entries as of before a resize
+            int room = Math.min(entries, buffer.length);
+            if(snapshot == null || snapshot.length < room) {
+                snapshot = new Object[room];
+            }
+            
+            int copied = readRecentInto(snapshot, 0, room);
+            try {
+                for(int i = 0 ; i < copied ; i++) {
+                    callback.call((E) snapshot[i]);
+                }
+            } finally {
+                Arrays.fill(snapshot, 0, copied, null); //must not keep the entries alive
+                scratch.set(snapshot);
+            }
+            
+            return copied;
+        }
+        
+        try {
+            lock.readLock().lock();
+            
+            if(entries > size) {
+                entries = size;
+            }
+            
+            //in two runs, up to the end of the backing buffer and from its beginning
+            int from = slot(size - entries);
+            int firstPart = Math.min(entries, buffer.length - from);
+            for(int i = from ; i < from + firstPart ; i++) {
+                callback.call((E) buffer[i]);
+            }
+            for(int i = 0 ; i < entries - firstPart ; i++) {
+                callback.call((E) buffer[i]);
+            }
+            
+            return entries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Creates a cursor positioned right after the newest entry, so it
+     * follows the entries written from now on.
+     * 
+     * @return a new cursor for this buffer
+     */
+    public Cursor cursor() {
+        return new Cursor(written, false);
+    }
+    
+    /**
+     * Creates a gating cursor positioned right after the newest entry.
+     * 
+     * <p>Unlike a {@link #cursor() plain cursor}, writers wait for a gating
+     * cursor to read the oldest entry before overwriting it, so the slowest
+     * gating consumer holds up the writers instead of missing entries. Only
+     * {@link #clear()} and shrinking the buffer remove entries such a cursor
+     * has not read. A gating cursor has to be {@link #release(Cursor)
+     * released} once its consumer stops reading.
+     * 
+     * <p>How long writers wait for gating cursors is bounded by the
+     * {@link OverflowPolicy} only: with {@link OverflowPolicy#block(Duration)}
+     * they give up after its timeout, with
+     * {@link OverflowPolicy#OVERWRITE_OLDEST} they wait until the cursors
+     * move on or are released, so a consumer which dies without releasing
+     * its cursor holds up every writer until they are interrupted. Use a
+     * blocking policy where consumers may go away.
+     * 
+     * @return a new gating cursor for this buffer
+     */
+    public Cursor gatingCursor() {
+        try {
+            lock.writeLock().lock();
+            
+            //registered under the write lock, so no entry can be overwritten before the cursor counts
+            Cursor cursor = new Cursor(written, true);
+            
+            Cursor[] cursors = Arrays.copyOf(gatingCursors, gatingCursors.length + 1);
+            cursors[cursors.length - 1] = cursor;
+            gatingCursors = cursors;
+            
+            return cursor;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Releases a gating cursor, so writers no longer wait for it. Does
+     * nothing for plain or already released cursors.
+     * 
+     * @param cursor the cursor to release
+     */
+    public void release(Cursor cursor) {
+        notNull(cursor);
+        
+        try {
+            lock.writeLock().lock();
+            
+            Cursor[] cursors = gatingCursors;
+            for(int i = 0 ; i < cursors.length ; i++) {
+                if(cursors[i] == cursor) {
+                    Cursor[] remaining = new Cursor[cursors.length - 1];
+                    System.arraycopy(cursors, 0, remaining, 0, i);
+                    System.arraycopy(cursors, i + 1, remaining, i, remaining.length - i);
+                    gatingCursors = remaining;
+                    break;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+            
+            signalBlockedWriters();
+        }
+    }
+    
+    /**
+     * Waits until an entry has been written past the given cursor and
+     * returns it, moving the cursor past it.
+     * 
+     * <p>If the cursor fell behind the oldest entry, the entries it missed
+     * are counted by {@link Cursor#missed()} and it moves on to the oldest
+     * entry. Entries removed by {@link #clear()} or {@link #resize(int)}
+     * count as missed as well.
+     * 
+     * @param cursor the cursor of the consumer
+     * @param timeout how long to wait at most
+     * 
+     * @return the next entry, or <code>null</code> if none was written in
+     *         time
+     * 
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @SuppressWarnings("unchecked")
+    public E awaitNext(Cursor cursor, Duration timeout) throws InterruptedException {
+        notNull(cursor);
+        long deadline = System.nanoTime() + notNull(timeout).toNanos();
+        
+        while(await(cursor, deadline)) {
+            try {
+                lock.readLock().lock();
+                
+                catchUp(cursor);
+                if(cursor.position < written) { //otherwise the buffer was cleared in the meantime
+                    return (E) buffer[slot(entryIndexOf(cursor.position++))];
+                }
+            } finally {
+                lock.readLock().unlock();
+                
+                if(cursor.gating) {
+                    signalBlockedWriters();
+                }
+            }
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Waits until at least one entry has been written past the given cursor
+     * and returns up to <i>n</i> entries following it, oldest first, moving
+     * the cursor past them. Falling behind is handled like in
+     * {@link #awaitNext(Cursor, Duration)}.
+     * 
+     * @param cursor the cursor of the consumer
+     * @param maxEntries the maximum number of entries to return
+     * @param timeout how long to wait at most
+     * 
+     * @return an array of elements with a length between <code>0</code> and
+     *         <code>maxEntries</code>, empty if none was written in time
+     * 
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IllegalArgumentException if maxEntries is negative or zero
+     */
+    public E[] awaitBatch(Cursor cursor, int maxEntries, Duration timeout) throws InterruptedException {
+        notNull(cursor);
+        if(maxEntries <= 0) {
+            throw new IllegalArgumentException("Illegal number of Entries: " + maxEntries);
+        }
+        
+        long deadline = System.nanoTime() + notNull(timeout).toNanos();
+        
+        while(await(cursor, deadline)) {
+            try {
+                lock.readLock().lock();
+                
+                catchUp(cursor);
+                if(cursor.position < written) { //otherwise the buffer was cleared in the meantime
+                    int entries = (int) Math.min(maxEntries, written - cursor.position);
+                    E[] res = copyOf(buffer, head, entryIndexOf(cursor.position), entries);
+                    cursor.position += entries;
+                    return res;
+                }
+            } finally {
+                lock.readLock().unlock();
+                
+                if(cursor.gating) {
+                    signalBlockedWriters();
+                }
+            }
+        }
+        
+        return copyOf(buffer, 0, 0, 0);
+    }
+    
+    /**
+     * Waits until at least one entry has been written past the given cursor
+     * and passes up to <i>n</i> entries following it to the given callback,
+     * oldest first, moving the cursor past them. The entries are not copied,
+     * so consumers sharing the buffer all read the same entries in place.
+     * Falling behind is handled like in {@link #awaitNext(Cursor, Duration)}.
+     * 
+     * <p>The read lock is held while the callback runs, so writers wait
+     * until all entries have been passed on. The callback should be short
+     * and must not write to this buffer. In
+     * {@link LockingMode#OPTIMISTIC_READ} the read lock is not reentrant, so
+     * there the entries are copied first and the callback runs without
+     * holding it, free to read this buffer again. Should the callback throw,
+     * the cursor stays at the entry it threw for.
+     * 
+     * @param cursor the cursor of the consumer
+     * @param maxEntries the maximum number of entries to pass on
+     * @param timeout how long to wait at most
+     * @param callback called with every entry
+     * 
+     * @return the number of entries passed on, <code>0</code> if none was
+     *         written in time
+     * 
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IllegalArgumentException if maxEntries is negative or zero
+     */
+    @SuppressWarnings("unchecked")
+    public int awaitForEach(Cursor cursor, int maxEntries, Duration timeout, ParameterizedCallback<? super E> callback) throws InterruptedException {
+        notNull(cursor);
+        notNull(callback);
+        if(maxEntries <= 0) {
+            throw new IllegalArgumentException("Illegal number of Entries: " + maxEntries);
+        }
+        
+        long deadline = System.nanoTime() + notNull(timeout).toNanos();
+        
+        E[] snapshot = null;
+        while(await(cursor, deadline)) {
+            try {
+                lock.readLock().lock();
+                
+                catchUp(cursor);
+                if(cursor.position < written) { //otherwise the buffer was cleared in the meantime
+                    int entries = (int) Math.min(maxEntries, written - cursor.position);
+                    int entryIndex = entryIndexOf(cursor.position);
+                    if(stampedLock != null) { //not reentrant, so the callback runs after unlocking
+                        snapshot = copyOf(buffer, head, entryIndex, entries);
+                        break;
+                    }
+                    
+                    for(int i = 0 ; i < entries ; i++) {
+                        callback.call((E) buffer[slot(entryIndex + i)]);
+                        cursor.position++;
+                    }
+                    return entries;
+                }
+            } finally {
+                lock.readLock().unlock();
+                
+                if(cursor.gating && snapshot == null) {
+                    signalBlockedWriters();
+                }
+            }
+        }
+        
+        if(snapshot == null) {
+            return 0;
+        }
+        
+        try {
+            for(E element : snapshot) {
+                callback.call(element);
+                cursor.position++;
+            }
+            
+            return snapshot.length;
+        } finally {
+            if(cursor.gating) {
+                signalBlockedWriters();
+            }
+        }
+    }
+    
+    /**
+     * Waits until an entry has been written past the given cursor. Waiters
+     * register before checking, so a writer either sees them registered or
+     * they see its write; and they check and wait holding the signal lock, so
+     * the signal cannot get lost in between.
+     * 
+     * @param deadline the {@link System#nanoTime()} at which to give up
+     * 
+     * @return whether there is an entry past the cursor
+     */
+    private final boolean await(Cursor cursor, long deadline) throws InterruptedException {
+        if(written > cursor.position) {
+            return true;
+        }
+        
+        long remaining = deadline - System.nanoTime();
+        
+        waiters.incrementAndGet();
+        try {
+            signalLock.lockInterruptibly();
+            try {
+                while(written <= cursor.position) {
+                    if(remaining <= 0) {
+                        return false;
+                    }
+                    
+                    remaining = published.awaitNanos(remaining);
+                }
+                
+                return true;
+            } finally {
+                signalLock.unlock();
+            }
+        } finally {
+            waiters.decrementAndGet();
+        }
+    }
+    
+    /**
+     * Wakes up consumers waiting for the next write, if there are any.
+     */
+    private final void signalWaiters() {
+        if(waiters.get() == 0) {
+            return;
+        }
+        
+        try {
+            signalLock.lock();
+            
+            published.signalAll();
+        } finally {
+            signalLock.unlock();
+        }
+    }
+    
+    /**
+     * Checks whether an entry can be written without overwriting one which
+     * has not been consumed yet, i.e. one a gating cursor has not read.
+     * Without gating cursors every entry counts as consumed. Must be called
+     * holding a lock.
+     * 
+     * @return whether the next entry can be written
+     */
+    private final boolean hasRoom() {
+        if(size < buffer.length) {
+            return true;
+        }
+        
+        Cursor[] gatingCursors = this.gatingCursors;
+        if(gatingCursors.length == 0) {
+            return true;
+        }
+        
+        long oldest = written - size;
+        for(Cursor cursor : gatingCursors) {
+            if(cursor.position <= oldest) {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Counts how many entries can be written without overwriting one which
+     * has not been consumed yet, see {@link #hasRoom()}. Must be called
+     * holding a lock.
+     * 
+     * @return the number of entries which can be written,
+     *         <code>Integer.MAX_VALUE</code> if there is no limit
+     */
+    private final int room() {
+        Cursor[] gatingCursors = this.gatingCursors;
+        if(gatingCursors.length == 0) {
+            return Integer.MAX_VALUE;
+        }
+        
+        //entries behind the slowest gating cursor are consumed and can be overwritten
+        long slowest = written;
+        for(Cursor cursor : gatingCursors) {
+            slowest = Math.min(slowest, cursor.position);
+        }
+        long pending = written - Math.max(slowest, written - size);
+        
+        return buffer.length - (int) pending;
+    }
+    
+    /**
+     * Applies the overflow policy to a write which found no room. Must be
+     * called holding the write lock, which is released while waiting.
+     * 
+     * @return whether there is room for the element now
+     */
+    private final boolean overflow(E element) {
+        switch(overflow.action) {
+            case DROP_NEWEST:
+                droppedWrites++;
+                return false;
+            case REJECT:
+                rejectedWrites++;
+                throw new IllegalStateException("Buffer is full, cannot write " + element);
+            default:
+                blockedWrites++;
+        }
+        
+        //overwriting waits for gating cursors without a timeout
+        boolean timed = overflow.action == OverflowPolicy.Action.BLOCK;
+        long deadline = System.nanoTime() + overflow.timeoutNanos;
+        while(true) {
+            boolean inTime;
+            lock.writeLock().unlock();
+            try {
+                signalWaiters(); //consumers must see what a bulk write wrote so far, or they would never make room
+                
+                inTime = awaitRoom(timed, deadline);
+            } finally {
+                lock.writeLock().lock();
+            }
+            
+            if(hasRoom()) { //another writer may have taken the room in the meantime
+                return true;
+            }
+            if(!inTime) {
+                droppedWrites++;
+                return false;
+            }
+        }
+    }
+    
+    /**
+     * Waits until there is room for the next entry. Follows the same
+     * protocol as waiting consumers, see {@link #await(Cursor, long)}.
+     * Writes cannot be interrupted, so an interrupted wait gives up like a
+     * timed out one, keeping the interrupt status.
+     * 
+     * @param timed whether to give up at the deadline
+     * @param deadline the {@link System#nanoTime()} at which to give up
+     * 
+     * @return whether there is room, <code>false</code> if the wait timed
+     *         out or was interrupted
+     */
+    private final boolean awaitRoom(boolean timed, long deadline) {
+        blockedWriters.incrementAndGet();
+        try {
+            signalLock.lock();
+            try {
+                while(!hasRoomLocked()) {
+                    long remaining = deadline - System.nanoTime();
+                    if(timed && remaining <= 0) {
+                        return false;
+                    }
+                    
+                    try {
+                        if(timed) {
+                            consumed.awaitNanos(remaining);
+                        } else {
+                            consumed.await();
+                        }
+                    } catch(InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                }
+                
+                return true;
+            } finally {
+                signalLock.unlock();
+            }
+        } finally {
+            blockedWriters.decrementAndGet();
+        }
+    }
+    
+    private final boolean hasRoomLocked() {
+        try {
+            lock.readLock().lock();
+            
+            return hasRoom();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Wakes up writers waiting for gating cursors, if there are any.
+     */
+    private final void signalBlockedWriters() {
+        if(blockedWriters.get() == 0) {
+            return;
+        }
+        
+        try {
+            signalLock.lock();
+            
+            consumed.signalAll();
+        } finally {
+            signalLock.unlock();
+        }
+    }
+    
+    /**
+     * Moves a cursor which fell behind the oldest entry up to it, counting
+     * the entries it missed. Must be called holding a lock.
+     */
+    private final void catchUp(Cursor cursor) {
+        long oldest = written - size;
+        if(cursor.position < oldest) {
+            cursor.missed += oldest - cursor.position;
+            cursor.position = oldest;
+        }
+    }
+    
+    /**
+     * Maps the sequence of an entry to its index. Must be called holding a
+     * lock.
+     */
+    private final int entryIndexOf(long sequence) {
+        return (int) (sequence - (written - size));
+    }
+    
+    /**
+     * Copies entries from the given backing buffer into an existing array,
+     * with at most two copies.
+     * 
+     * @param buffer the backing buffer to copy from
+     * @param head the position of the oldest entry in the backing buffer
+     * @param entryIndex the index of the first entry to copy
+     * @param entries the amount of entries to copy, must be available
+     * @param dest the array to copy into, must have room for the entries
+     * @param off the position in the array to copy the first entry to
+     */
+    private static final void copyInto(Object[] buffer, int head, int entryIndex, int entries, Object[] dest, int off) {
+        int from = position(buffer, head, entryIndex);
+        int firstPart = Math.min(entries, buffer.length - from);
+        
+        System.arraycopy(buffer, from, dest, off, firstPart);
+        System.arraycopy(buffer, 0, dest, off + firstPart, entries - firstPart);
+    }
+    
+    /**
+     * Copies entries from the backing buffer into a new array. At most two
+     * copies are needed; one up to the end of the backing buffer and one for
+     * the wrapped around rest.
+     * 
+     * <p>The backing buffer and its head are passed in, so optimistic reads
+     * can copy from the snapshot they validate.
+     * 
+     * @param buffer the backing buffer to copy from
+     * @param head the position of the oldest entry in the backing buffer
+     * @param entryIndex the index of the first entry to copy
+     * @param entries the amount of entries to copy, must be available
+     * 
+     * @return an array of elements with a length of <code>entries</code>
+     */
+    @SuppressWarnings("unchecked")
+    private final E[] copyOf(Object[] buffer, int head, int entryIndex, int entries) {
+        if(entries == 0) {
+            return (E[]) Array.newInstance(type, 0);
+        }
+        
+        int from = position(buffer, head, entryIndex);
+        E[] res = Arrays.copyOfRange(buffer, from, from + entries, arrtype); //pads with null past buffer.length
+        
+        int firstPart = buffer.length - from;
+        if(entries > firstPart) {
+            System.arraycopy(buffer, 0, res, firstPart, entries - firstPart);
+        }
+        
+        return res;
+    }
+    
+    /**
+     * Maps the index of an entry to its position in the backing buffer.
+     * 
+     * @param entryIndex the index of the entry, <code>0</code> being the
+     *        oldest
+     * 
+     * @return the position of the entry in the backing buffer
+     */
+    private final int slot(int entryIndex) {
+        if(mask != NO_MASK) {
+            return (head + entryIndex) & mask;
+        }
+        
+        return wrap(head + entryIndex);
+    }
+    
+    /**
+     * Maps the index of an entry to its position in the given backing
+     * buffer, without reading any fields. Works in power-of-two mode as well,
+     * as positions never go past twice the capacity.
+     * 
+     * @param buffer the backing buffer
+     * @param head the position of the oldest entry in the backing buffer
+     * @param entryIndex the index of the entry, <code>0</code> being the
+     *        oldest
+     * 
+     * @return the position of the entry in the backing buffer
+     */
+    private static final int position(Object[] buffer, int head, int entryIndex) {
+        int position = head + entryIndex;
+        return position >= buffer.length ? position - buffer.length : position;
+    }
+    
+    /**
+     * Checks whether the fields read by an optimistic read fit together, as
+     * a concurrent resize may have replaced the backing buffer in between.
+     * Positions mapped from inconsistent fields could lie outside the
+     * backing buffer, before the read could fail its validation.
+     * 
+     * @return whether entries can safely be mapped with the given fields
+     */
+    private static final boolean consistent(Object[] buffer, int head, int size) {
+        return head < buffer.length && size <= buffer.length;
+    }
+    
+    /**
+     * Wraps a position that went past the end of the backing buffer around
+     * to its beginning.
+     * 
+     * @param position a position inside <code>[0, 2 * capacity)</code>
+     * 
+     * @return the position inside <code>[0, capacity)</code>
+     */
+    private final int wrap(int position) {
+        return position >= buffer.length ? position - buffer.length : position;
+    }
+    
+    /**
+     * @return the amount of rows containing data
+     */
+    public int getSize() {
+        return size;
+    }
+    
     /**
      * @return the amount of characters this buffer can hold
      */
     public int getCapacity() {
         return buffer.length;
     }
+    
+    /**
+     * @return what a write does if it would overwrite an entry which has not
+     *         been consumed
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflow;
+    }
+    
+    /**
+     * @return the amount of writes dropped by the overflow policy, including
+     *         blocked writes which timed out
+     */
+    public long getDroppedWrites() {
+        return droppedWrites;
+    }
+    
+    /**
+     * @return the amount of writes which had to wait for room
+     */
+    public long getBlockedWrites() {
+        return blockedWrites;
+    }
+    
+    /**
+     * @return the amount of writes rejected by the overflow policy
+     */
+    public long getRejectedWrites() {
+        return rejectedWrites;
+    }
+    
+    /**
+     * The position of a consumer following a {@link LimitedBuffer}, see
+     * {@link LimitedBuffer#cursor()}.
+     * 
+     * <p>A cursor is meant to be used by a single consumer and is not
+     * synchronized.
+     * 
+     * @author Michael Stocker
+     * @since 0.8.0
+     */
+    public static final class Cursor {
+        private final boolean gating;
+        
+        /**
+         * Read by writers waiting for gating cursors
+         */
+        private volatile long position;
+        private long missed = 0;
+        
+        private Cursor(long position, boolean gating) {
+            this.position = position;
+            this.gating = gating;
+        }
+        
+        /**
+         * @return whether writers wait for this cursor, see
+         *         {@link LimitedBuffer#gatingCursor()}
+         */
+        public boolean isGating() {
+            return gating;
+        }
+        
+        /**
+         * @return the sequence of the next entry this cursor reads, counting
+         *         all entries ever written to the buffer
+         */
+        public long position() {
+            return position;
+        }
+        
+        /**
+         * @return the amount of entries that were overwritten before this
+         *         cursor could read them
+         */
+        public long missed() {
+            return missed;
+        }
+        
+        @Override
+        public String toString() {
+            return "Cursor[position=" + position + ", missed=" + missed + ", gating=" + gating + "]";
+        }
+    }
+    
+    /**
+     * What a write to a {@link LimitedBuffer} does if it would overwrite an
+     * entry which has not been consumed yet.
+     * 
+     * <p>With {@link LimitedBuffer#gatingCursor() gating cursors} registered,
+     * an entry is consumed once all of them have read it. Without any, every
+     * entry counts as consumed, as nobody is waiting for it, so a full
+     * buffer overwrites its oldest entries whatever the policy; plain
+     * {@link LimitedBuffer#cursor() cursors} never hold up writers.
+     * 
+     * <p>The buffer counts the writes each policy dropped, blocked or
+     * rejected, see {@link LimitedBuffer#getDroppedWrites()}.
+     * 
+     * @author Michael Stocker
+     * @since 0.8.0
+     */
+    public static final class OverflowPolicy {
+        /**
+         * Overwrites the oldest entry. Gating cursors are still waited for,
+         * without a timeout, as they must not miss any entries; only
+         * interrupting the writer makes it give up and drop the element,
+         * keeping the interrupt status.
+         */
+        public static final OverflowPolicy OVERWRITE_OLDEST = new OverflowPolicy(Action.OVERWRITE_OLDEST, 0);
+        /**
+         * Drops the element being written, keeping the entries already in
+         * the buffer.
+         */
+        public static final OverflowPolicy DROP_NEWEST = new OverflowPolicy(Action.DROP_NEWEST, 0);
+        /**
+         * Throws an {@link IllegalStateException} instead of writing the
+         * element.
+         */
+        public static final OverflowPolicy REJECT = new OverflowPolicy(Action.REJECT, 0);
+        
+        private enum Action {
+            OVERWRITE_OLDEST, DROP_NEWEST, BLOCK, REJECT;
+        }
+        
+        private final Action action;
+        private final long timeoutNanos;
+        
+        private OverflowPolicy(Action action, long timeoutNanos) {
+            this.action = action;
+            this.timeoutNanos = timeoutNanos;
+        }
+        
+        /**
+         * Waits up to the given timeout for the entry to be consumed, and
+         * drops the element being written if it is not.
+         * 
+         * @param timeout how long a write waits at most
+         * 
+         * @return a blocking overflow policy
+         * 
+         * @throws IllegalArgumentException if the timeout is negative
+         */
+        public static OverflowPolicy block(Duration timeout) {
+            if(notNull(timeout).isNegative()) {
+                throw new IllegalArgumentException("Illegal Timeout: " + timeout);
+            }
+            
+            return new OverflowPolicy(Action.BLOCK, Timeouts.nanosOf(timeout));
+        }
+        
+        @Override
+        public String toString() {
+            return action == Action.BLOCK ? "BLOCK[" + Duration.ofNanos(timeoutNanos) + "]" : action.name();
+        }
+    }
+    
+    /**
+     * How reads and writes of a {@link LimitedBuffer} are guarded.
+     * 
+     * @author Michael Stocker
+     * @since 0.8.0
+     */
+    public static enum LockingMode {
+        /**
+         * Reads and writes take a fair read-write lock, so readers queue up
+         * behind waiting writers.
+         */
+        FAIR,
+        /**
+         * Reads copy what they need without taking a lock, and only take the
+         * read lock if a write happened in the meantime. Writes take a
+         * non-fair write lock. Suited for buffers that are read far more
+         * often than written to, where fair locking makes every read pay for
+         * the lock handshake.
+         */
+        OPTIMISTIC_READ;
+    }
 }
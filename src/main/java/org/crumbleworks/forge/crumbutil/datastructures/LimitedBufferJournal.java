@@ -0,0 +1,396 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.crumbleworks.forge.crumbutil.validation.Parameters.notNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+import org.crumbleworks.forge.crumbutil.callbacks.ParameterizedCallback;
+
+/**
+ * An append-only journal of the entries written to a {@link LimitedBuffer}, so its recent history survives a crash of the process, see {@link LimitedBuffer#setJournal(LimitedBufferJournal)} and {@link LimitedBuffer#recover(Path, int, Codec, Class, Class)}.
+ * <p>Writes to the buffer only hand their element to a {@link SpscRingQueue}; a background thread encodes the queued elements with a {@link Codec} and appends them to the current segment file in batches. Should the queue be full, the element is not journaled and counted as dropped, so the buffer is never held up by the disk.
+ * <p>Every record is made up of its length, the CRC32 of its bytes and the bytes themselves, so a record torn by a crash is detected and ends the replay of its segment. Once a segment reaches its maximum size, a new one is started and the oldest ones are deleted, keeping a bounded number of segments. They should hold at least as many entries as the buffer, so it can be fully recovered.
+ * <p>Segments reach the disk whenever the operating system flushes its page cache, so a crash of the process alone does not lose anything that was written; closing the journal forces them to the disk.
+ * 
+ * @see MappedRingBuffer
+ * 
+ * @author Michael Stocker
+ * @since 0.8.0
+ * 
+ * @param <E> the type of the journaled elements
+ */
+public final class LimitedBufferJournal<E> implements Closeable {
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    
+    private static final int RECORD_HEADER_BYTES = 8; //length, crc
+    private static final int BATCH_LIMIT = 1024;
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+    
+    /**
+     * Converts elements to the bytes stored in a {@link LimitedBufferJournal} and back.
+     * 
+     * @author Michael Stocker
+     * @since 0.8.0
+     * 
+     * @param <E> the type of the converted elements
+     */
+    public static interface Codec<E> {
+        
+        /**
+         * Converts an element to bytes. Called from the thread writing the journal, so elements should not be changed after writing them to the buffer. An element that cannot be encoded is dropped, see {@link LimitedBufferJournal#droppedEntries()}.
+         * 
+         * @param element the element to convert
+         * 
+         * @return the bytes of the element; <code>null</code> drops the element like throwing does
+         */
+        public byte[] encode(E element);
+        
+        /**
+         * Converts bytes back to the element they were encoded from.
+         * 
+         * @param bytes the bytes of an element
+         * 
+         * @return the element
+         */
+        public E decode(byte[] bytes);
+    }
+    
+    private final Path directory;
+    private final Codec<? super E> codec;
+    private final long segmentBytes;
+    private final int maxSegments;
+    
+    private final SpscRingQueue<E> queue;
+    private final Thread writer;
+    private final AtomicBoolean attached = new AtomicBoolean();
+    
+    private volatile boolean running = true;
+    private volatile IOException failure;
+    
+    private final AtomicLong droppedEntries = new AtomicLong();
+    private volatile long journaledEntries = 0;
+    
+    /*
+     * Only used by the writer thread
+     */
+    private final ArrayDeque<Path> segments;
+    private long segmentIndex;
+    private FileChannel channel;
+    private long channelBytes = 0;
+    private ByteBuffer batch = ByteBuffer.allocate(64 * 1024);
+    private int batchEntries = 0;
+    private final CRC32 crc = new CRC32();
+    
+    /**
+     * Opens a journal in the given directory, which is created if needed. Existing segments are kept and count towards the maximum number of segments; new entries go to a new segment.
+     * 
+     * @param directory the directory holding the segments
+     * @param codec converts the elements to bytes
+     * @param segmentBytes the size at which a new segment is started
+     * @param maxSegments the number of segments to keep
+     * @param queueCapacity the number of elements which can wait to be journaled, rounded up to the next power of two
+     * 
+     * @param <E> the type of the journaled elements
+     * 
+     * @return the opened journal, with its writer thread started
+     * 
+     * @throws IllegalArgumentException if the segment size, the number of segments or the queue capacity are negative or zero
+     * @throws IOException if the directory or the first segment cannot be created
+     */
+    public static <E> LimitedBufferJournal<E> open(Path directory, Codec<? super E> codec, long segmentBytes, int maxSegments, int queueCapacity) throws IOException {
+        notNull(directory);
+        notNull(codec);
+        if(segmentBytes <= 0) {
+            throw new IllegalArgumentException("Illegal Segment Size: " + segmentBytes);
+        }
+        if(maxSegments <= 0) {
+            throw new IllegalArgumentException("Illegal number of Segments: " + maxSegments);
+        }
+        
+        Files.createDirectories(directory);
+        
+        LimitedBufferJournal<E> journal = new LimitedBufferJournal<>(directory, codec, segmentBytes, maxSegments, queueCapacity, segmentsOf(directory));
+        journal.writer.start();
+        return journal;
+    }
+    
+    private LimitedBufferJournal(Path directory, Codec<? super E> codec, long segmentBytes, int maxSegments, int queueCapacity, List<Path> existing) throws IOException {
+        this.directory = directory;
+        this.codec = codec;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        
+        this.queue = new SpscRingQueue<>(queueCapacity);
+        
+        this.segments = new ArrayDeque<>(existing);
+        this.segmentIndex = existing.isEmpty() ? 0 : indexOf(existing.get(existing.size() - 1)) + 1;
+        startSegment();
+        
+        this.writer = new Thread(this::writeLoop, "LimitedBufferJournal[" + directory + "]");
+        this.writer.setDaemon(true);
+    }
+    
+    /**
+     * Reads all entries of the journal in the given directory, oldest first. A segment is read up to its first torn or corrupt record.
+     * 
+     * @param directory the directory holding the segments
+     * @param codec converts the bytes back to elements
+     * @param callback called with every entry
+     * 
+     * @param <E> the type of the journaled elements
+     * 
+     * @return the number of entries read, <code>0</code> if there is no journal in the directory
+     * 
+     * @throws IOException if a segment cannot be read
+     */
+    public static <E> long replay(Path directory, Codec<? extends E> codec, ParameterizedCallback<? super E> callback) throws IOException {
+        notNull(directory);
+        notNull(codec);
+        notNull(callback);
+        if(!Files.isDirectory(directory)) {
+            return 0;
+        }
+        
+        CRC32 crc = new CRC32();
+        long entries = 0;
+        for(Path segment : segmentsOf(directory)) {
+            ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(segment));
+            while(records.remaining() >= RECORD_HEADER_BYTES) {
+                int length = records.getInt();
+                int checksum = records.getInt();
+                if(length < 0 || length > records.remaining()) { //torn by a crash
+                    break;
+                }
+                
+                byte[] bytes = new byte[length];
+                records.get(bytes);
+                
+                crc.reset();
+                crc.update(bytes, 0, length);
+                if((int)crc.getValue() != checksum) {
+                    break;
+                }
+                
+                callback.call(codec.decode(bytes));
+                entries++;
+            }
+        }
+        
+        return entries;
+    }
+    
+    /**
+     * Returns the directory holding the segments
+     * 
+     * @return the directory of this journal
+     */
+    public Path directory() {
+        return directory;
+    }
+    
+    /**
+     * Returns the number of entries that were appended to a segment
+     * 
+     * @return the number of journaled entries
+     */
+    public long journaledEntries() {
+        return journaledEntries;
+    }
+    
+    /**
+     * Returns the number of entries that were not journaled, as the queue was full, their element could not be encoded or the journal failed or was closed
+     * 
+     * @return the number of dropped entries
+     */
+    public long droppedEntries() {
+        return droppedEntries.get();
+    }
+    
+    /**
+     * Journals the remaining queued entries, forces the segment to the disk and stops the writer thread.
+     * <p>Entries written to the buffer afterwards are dropped.
+     * 
+     * @throws IOException if writing the journal failed at any point, or wrapping whatever else ended the writer thread
+     */
+    @Override
+    public void close() throws IOException {
+        if(running) {
+            running = false;
+            LockSupport.unpark(writer);
+            
+            boolean interrupted = false;
+            while(writer.isAlive()) {
+                try {
+                    writer.join();
+                } catch(InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if(interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        if(failure != null) {
+            throw failure;
+        }
+    }
+    
+    /* ************************************************************************
+     * PRODUCER
+     */
+    
+    /**
+     * Binds this journal to the buffer it journals, as there can only be one producer.
+     * 
+     * @throws IllegalStateException if the journal is bound to a buffer already
+     */
+    final void attach() {
+        if(!attached.compareAndSet(false, true)) {
+            throw new IllegalStateException("Journal is attached to a buffer already.");
+        }
+    }
+    
+    final void detach() {
+        attached.set(false);
+    }
+    
+    /**
+     * Queues an element to be journaled. Called by the buffer holding its write lock, which makes it the single producer of the queue.
+     */
+    final void append(E element) {
+        if(!running || !queue.offer(element)) {
+            droppedEntries.incrementAndGet();
+        }
+    }
+    
+    /* ************************************************************************
+     * WRITER
+     */
+    
+    private final void writeLoop() {
+        try {
+            while(running || !queue.isEmpty()) {
+                if(queue.drain(this::encode, BATCH_LIMIT) == 0) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    continue;
+                }
+                
+                writeBatch();
+            }
+            
+            channel.force(true);
+        } catch(Throwable t) { //the thread would end silently otherwise
+            failure = t instanceof IOException ? (IOException)t : new IOException("Journal writer failed", t);
+            running = false;
+            droppedEntries.addAndGet(batchEntries + queue.size());
+        } finally {
+            try {
+                channel.close();
+            } catch(IOException e) {
+                if(failure == null) {
+                    failure = e;
+                }
+            }
+        }
+    }
+    
+    private final void encode(E element) {
+        byte[] bytes;
+        try {
+            bytes = codec.encode(element);
+        } catch(RuntimeException e) { //a single bad element must not end the journal
+            bytes = null;
+        }
+        if(bytes == null) {
+            droppedEntries.incrementAndGet();
+            return;
+        }
+        
+        if(batch.remaining() < RECORD_HEADER_BYTES + bytes.length) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(batch.capacity() * 2, batch.position() + RECORD_HEADER_BYTES + bytes.length));
+            batch.flip();
+            larger.put(batch);
+            batch = larger;
+        }
+        
+        crc.reset();
+        crc.update(bytes, 0, bytes.length);
+        batch.putInt(bytes.length)
+             .putInt((int)crc.getValue())
+             .put(bytes);
+        batchEntries++;
+    }
+    
+    /*
+     * writes the batch to the current segment, starting a new one first if the batch would not fit anymore; records are never split across segments
+     */
+    private final void writeBatch() throws IOException {
+        batch.flip();
+        
+        if(channelBytes > 0 && channelBytes + batch.remaining() > segmentBytes) {
+            channel.close();
+            segmentIndex++;
+            startSegment();
+        }
+        
+        while(batch.hasRemaining()) {
+            channelBytes += channel.write(batch);
+        }
+        
+        journaledEntries += batchEntries;
+        batchEntries = 0;
+        batch.clear();
+    }
+    
+    private final void startSegment() throws IOException {
+        Path segment = directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, segmentIndex, SEGMENT_SUFFIX));
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        channelBytes = 0;
+        
+        segments.addLast(segment);
+        while(segments.size() > maxSegments) {
+            Files.deleteIfExists(segments.removeFirst());
+        }
+    }
+    
+    /* ************************************************************************
+     * HELPERS
+     */
+    
+    /*
+     * the segments in the directory, oldest first
+     */
+    private static List<Path> segmentsOf(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for(Path segment : stream) {
+                segments.add(segment);
+            }
+        }
+        
+        Collections.sort(segments); //zero-padded indexes sort by name
+        return segments;
+    }
+    
+    private static long indexOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,175 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.crumbleworks.forge.crumbutil.validation.Parameters.greaterOrEqual;
+
+/**
+ * Creates a fixed size, circular buffer of <code>long</code> values. New values are added at the beginning, the oldest value gets dropped.
+ * <p>Order of the buffer is youngest to oldest, <code>0</code> to <code>{@linkplain #size()} -1</code>
+ * <p>Other than {@link HeadInRingBuffer} this buffer keeps its values in a primitive array, so neither adding nor reading a value boxes it.
+ * <p>This class offers:
+ * <ul>
+ *     <li>add(long)</li>
+ *     <li>get(int)</li>
+ *     <li>size()</li>
+ *     <li>toArray(long[])</li>
+ * </ul>
+ * 
+ * @see HeadInRingBuffer
+ * @see LongTailInRingBuffer
+ * 
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+public class LongHeadInRingBuffer {
+
+    private final int capacity;
+    private int size;
+    
+    /*
+     * The current offset for the indexes, always inside [0, capacity)
+     */
+    int offset = 0;
+    
+    private final long[] data;
+    
+    /**
+     * Constructs an empty ringbuffer with the specified capacity
+     * 
+     * @param capacity the capacity of the ringbuffer
+     * 
+     * @throws IllegalArgumentException if the specified capacity is negative or zero
+     */
+    public LongHeadInRingBuffer(int capacity) {
+        if(capacity > 0) {
+            this.capacity = capacity;
+            this.data = new long[capacity];
+            this.size = 0;
+        } else {
+            throw new IllegalArgumentException("Illegal Capacity: " + capacity);
+        }
+    }
+    
+    /**
+     * Constructs an ringbuffer containing the specified values, in the order they appear in the array.
+     * <p>And with a capacity equal to the length of the specified array.
+     * 
+     * @param values the values to be placed in this ringbuffer
+     * @throws IllegalArgumentException if the specified array is empty
+     * @throws NullPointerException if the specified array is <code>null</code>
+     */
+    public LongHeadInRingBuffer(long[] values) {
+        if((size = values.length) > 0) {
+            this.capacity = size;
+            data = new long[capacity];
+            
+            int dataCursor = 0;
+            int valuesCursor = size - 1;
+            for( ; dataCursor < capacity ; dataCursor++, valuesCursor--) {
+                data[dataCursor] = values[valuesCursor];
+            }
+        } else {
+            throw new IllegalArgumentException("Illegal Capacity: " + size);
+        }
+    }
+    
+    /**
+     * Returns the number of values in this ringbuffer
+     * 
+     * @return the number of values in this ringbuffer
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Returns the capacity of this ringbuffer
+     * 
+     * @return the capacity of this ringbuffer
+     */
+    public int capacity() {
+        return capacity;
+    }
+    
+    /**
+     * Returns the value at the specified position in this ringbuffer.
+     * 
+     * @param index the index of the value to return
+     * 
+     * @return the value at the specified position
+     * @throws IllegalArgumentException if the index is outside of <code>0</code> to <code>{@linkplain #size()} -1</code>
+     */
+    public long get(int index) {
+        return data[internalIndex(-(indexInsideBounds(greaterOrEqual(index, 0)) - (size - 1)))];
+    }
+    
+    /**
+     * Adds a value to the beginning of this ringbuffer, dropping the oldest value if the ringbuffer is at capacity.
+     * 
+     * @param value the value to be added
+     */
+    public void add(long value) {
+        if(size < capacity) {
+            data[internalIndex(size++)] = value;
+            return;
+        }
+        
+        data[offset] = value;
+        if(++offset == capacity) {
+            offset = 0;
+        }
+    }
+    
+    /**
+     * Returns an array containing all values of this ringbuffer, youngest to oldest.
+     * 
+     * @return a new array containing the values of this ringbuffer
+     */
+    public long[] toArray() {
+        return toArray(new long[size]);
+    }
+    
+    /**
+     * Copies all values of this ringbuffer, youngest to oldest, into the specified array, starting at index <code>0</code>.
+     * <p>If the array is too small to hold the values, a new array of the size of this ringbuffer is allocated instead.
+     * 
+     * @param dest the array into which the values are to be copied
+     * 
+     * @return the array containing the values of this ringbuffer
+     * @throws NullPointerException if the specified array is <code>null</code>
+     */
+    public long[] toArray(long[] dest) {
+        if(dest.length < size) {
+            dest = new long[size];
+        }
+        
+        //values are stored oldest to youngest, so we walk backwards from the youngest one
+        int destCursor = 0;
+        for(int dataCursor = internalIndex(size - 1) ; dataCursor >= 0 && destCursor < size ; dataCursor--, destCursor++) {
+            dest[destCursor] = data[dataCursor];
+        }
+        for(int dataCursor = capacity - 1 ; destCursor < size ; dataCursor--, destCursor++) {
+            dest[destCursor] = data[dataCursor];
+        }
+        
+        return dest;
+    }
+    
+    /*
+     * conversion method to map an index to the index of the internal array
+     */
+    private final int internalIndex(int i) {
+        int res;
+        return (res = i + offset) >= capacity ? res - capacity : res;
+    }
+    
+    /*
+     * check index inside bounds
+     */
+    private final int indexInsideBounds(int i) {
+        if(i < size) {
+            return i;
+        }
+        
+        throw new IllegalArgumentException("Index " + i + " is outside bounds.");
+    }
+}
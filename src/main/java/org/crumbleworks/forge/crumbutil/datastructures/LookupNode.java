@@ -7,6 +7,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Allows creating simple lookup trees.
@@ -15,6 +16,8 @@ import java.util.TreeSet;
  * 
  * <p>To get values call {@link #resolve(String, boolean)}.
  * 
+ * <p>The child-nodes are guarded with a {@link ReentrantLock} instead of a monitor, so virtual threads blocking on it do not pin their carrier thread.
+ * 
  * @author Michael Stocker
  * @since 0.6.9
  * 
@@ -22,6 +25,7 @@ import java.util.TreeSet;
  */
 public final class LookupNode<V> {
     private final Map<Character, LookupNode<V>> childNodes;
+    private final ReentrantLock lock = new ReentrantLock();
 
     private V value;
     private TreeSet<V> possibleValues;
@@ -69,7 +73,8 @@ public final class LookupNode<V> {
      * @return an unmodifiable set with all the values further down the tree.
      */
     public final Set<V> getPossibleValues() {
-        synchronized(childNodes) {
+        lock.lock();
+        try {
             if(possibleValues == null) {
                 TreeSet<V> values = new TreeSet<>();
                 
@@ -79,6 +84,8 @@ public final class LookupNode<V> {
             }
             
             return Collections.unmodifiableSortedSet(possibleValues);
+        } finally {
+            lock.unlock();
         }
     }
     
@@ -90,7 +97,8 @@ public final class LookupNode<V> {
      * @param node the next node to traverse
      */
     private final void traverseNodesToCollectValues(final Set<V> values, final LookupNode<V> node) {
-        synchronized(node.childNodes) {
+        node.lock.lock();
+        try {
             if(node.value != null) {
                 values.add(node.value);
             }
@@ -98,6 +106,8 @@ public final class LookupNode<V> {
             for(LookupNode<V> childNode : node.childNodes.values()) {
                 traverseNodesToCollectValues(values, childNode);
             }
+        } finally {
+            node.lock.unlock();
         }
     }
     
@@ -118,7 +128,8 @@ public final class LookupNode<V> {
      * @return the previous value associated with this key or <code>null</code> if no value was associated previously
      */
     public final V put(final String key, final V v) {
-        synchronized(childNodes) {
+        lock.lock();
+        try {
             V prevValue = null;
             char c = notNull(key).charAt(0);
             
@@ -140,6 +151,8 @@ public final class LookupNode<V> {
             
             possibleValues = null;
             return prevValue;
+        } finally {
+            lock.unlock();
         }
     }
     
@@ -154,7 +167,8 @@ public final class LookupNode<V> {
      * @return a {@link LookupResult} or <code>null</code> if the supplied key cannot be fully resolved
      */
     public final LookupResult<V> resolve(final String key, boolean partial) {
-        synchronized(childNodes) {
+        lock.lock();
+        try {
             //we're technically abusing the lookup result here
             LookupResult<V> lookupResult = findNode(key, this);
             
@@ -179,6 +193,8 @@ public final class LookupNode<V> {
             
             //could not finish looking up key
             return null;
+        } finally {
+            lock.unlock();
         }
     }
     
@@ -191,7 +207,8 @@ public final class LookupNode<V> {
      * @return a {@link LookupResult} or <code>null</code> if the key cannot be found
      */
     private final LookupResult<V> findNode(final String key, final LookupNode<V> node) {
-        synchronized(childNodes) {
+        lock.lock();
+        try {
             char c = notNull(key).charAt(0);
             
             if(node.childNodes.containsKey(c)) {
@@ -207,6 +224,8 @@ public final class LookupNode<V> {
             }
             
             return null;
+        } finally {
+            lock.unlock();
         }
     }
     
@@ -220,13 +239,16 @@ public final class LookupNode<V> {
      * @return a {@link LookupResult} or <code>null</code> if there's no match along the branch
      */
     public final LookupResult<V> explore(char c) {
-        synchronized(childNodes) {
+        lock.lock();
+        try {
             if(!childNodes.containsKey(c)) {
                 //has no matching child-node > null
                 return null;
             }
             
             return traverseNodesStraight(new StringBuilder(c), childNodes.get(c));
+        } finally {
+            lock.unlock();
         }
     }
     
@@ -237,7 +259,8 @@ public final class LookupNode<V> {
      * @param node the next node to check
      */
     private final LookupResult<V> traverseNodesStraight(final StringBuilder s, final LookupNode<V> node) {
-        synchronized(childNodes) {
+        lock.lock();
+        try {
             if(node.getValue() != null) {
                 //has value
                 return new LookupResult<>(s.toString(), node);
@@ -251,6 +274,8 @@ public final class LookupNode<V> {
             return traverseNodesStraight(
                     s.append(node.childNodes.keySet().iterator().next()),
                     node.childNodes.values().iterator().next());
+        } finally {
+            lock.unlock();
         }
     }
     
@@ -0,0 +1,219 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.crumbleworks.forge.crumbutil.validation.Parameters.notNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An {@link OffHeapRingBuffer} whose records are stored in a memory-mapped file, so its contents survive restarts.
+ * <p>Order of the buffer is oldest to youngest, <code>0</code> to <code>{@linkplain #size()} -1</code>, like in a {@link TailInRingBuffer}.
+ * <p>The file starts with a small header holding the layout of the records and the current offset and size of the buffer. Reopening the file with {@link #open(Path, int, long, Durability)} restores the buffer as it was, without replaying any records.
+ * <p>When records reach the disk depends on the {@link Durability}. In either case a record added through {@link #add(Record)} is only complete once all its fields have been written, which is why the offset and size in the header are only updated by {@link #flush()} and {@link #close()}: reopening the file restores the buffer as of the last flush.
+ * <p>This class is not synchronized.
+ * 
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+public final class MappedRingBuffer extends OffHeapRingBuffer implements Closeable {
+    private static final int MAX_SEGMENT_BYTES = 1 << 30;
+    
+    /*
+     * HEADER LAYOUT
+     */
+    private static final int MAGIC = 0x43524d42; //CRMB
+    private static final int VERSION = 1;
+    
+    private static final int MAGIC_POSITION = 0;
+    private static final int VERSION_POSITION = 4;
+    private static final int RECORD_SIZE_POSITION = 8;
+    private static final int CAPACITY_POSITION = 16;
+    private static final int OFFSET_POSITION = 24;
+    private static final int SIZE_POSITION = 32;
+    
+    private static final int HEADER_SIZE = 64;
+    
+    /**
+     * Determines when changes to a {@link MappedRingBuffer} are written to the disk.
+     * 
+     * @author Michael Stocker
+     * @since 0.8.0
+     */
+    public static enum Durability {
+        /**
+         * Changes are written whenever the operating system flushes its page cache. Cheapest, but as the operating system writes pages in any order, a crash of the machine may leave the header referring to records that were not written. A crash of the process alone loses the records added since the last {@link MappedRingBuffer#flush()}, but never exposes incomplete ones.
+         */
+        OS_FLUSHED,
+        /**
+         * Changes are written explicitly on every {@link MappedRingBuffer#flush()}, typically called once per batch of records. The records are forced before the header is updated, so even after a crash of the machine the header only refers to records that have been written.
+         */
+        FORCED;
+    }
+    
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final Durability durability;
+    
+    //positions not yet written to the header
+    private long pendingOffset;
+    private long pendingSize;
+    private boolean positionsPending;
+    
+    private MappedRingBuffer(int recordSize, long capacity, FileChannel channel, MappedByteBuffer header, Durability durability) {
+        super(recordSize, capacity, Ordering.OLDEST_FIRST, MAX_SEGMENT_BYTES, (position, bytes) -> map(channel, HEADER_SIZE + position, bytes));
+        
+        this.channel = channel;
+        this.header = header;
+        this.durability = durability;
+    }
+    
+    /**
+     * Opens the ringbuffer stored in the given file, or creates a new, empty one if the file does not exist yet.
+     * 
+     * @param file the file holding the ringbuffer
+     * @param recordSize the size of a single record in bytes
+     * @param capacity the amount of records the ringbuffer can hold
+     * @param durability when changes are written to the disk
+     * 
+     * @return the opened ringbuffer
+     * 
+     * @throws IllegalArgumentException if the specified record size or capacity is negative or zero, or if the existing file holds a ringbuffer with a different record size or capacity
+     * @throws IOException if the file cannot be opened or mapped, or does not hold a ringbuffer
+     */
+    public static MappedRingBuffer open(Path file, int recordSize, long capacity, Durability durability) throws IOException {
+        notNull(file);
+        notNull(durability);
+        if(recordSize <= 0 || recordSize > MAX_SEGMENT_BYTES) {
+            throw new IllegalArgumentException("Illegal Record Size: " + recordSize);
+        }
+        if(capacity <= 0) {
+            throw new IllegalArgumentException("Illegal Capacity: " + capacity);
+        }
+        
+        boolean existing = Files.exists(file) && Files.size(file) > 0;
+        if(existing && Files.size(file) < HEADER_SIZE) { //don't grow foreign files by mapping a header
+            throw new IOException("File '" + file + "' does not hold a ringbuffer.");
+        }
+        
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer header = map(channel, 0, HEADER_SIZE);
+            
+            if(existing) {
+                verifyHeader(file, header, recordSize, capacity);
+            } else {
+                header.putInt(MAGIC_POSITION, MAGIC)
+                      .putInt(VERSION_POSITION, VERSION)
+                      .putInt(RECORD_SIZE_POSITION, recordSize)
+                      .putLong(CAPACITY_POSITION, capacity)
+                      .putLong(OFFSET_POSITION, 0)
+                      .putLong(SIZE_POSITION, 0);
+            }
+            
+            MappedRingBuffer ring = new MappedRingBuffer(recordSize, capacity, channel, header, durability);
+            try {
+                ring.restorePositions(header.getLong(OFFSET_POSITION), header.getLong(SIZE_POSITION));
+            } catch(IllegalArgumentException e) {
+                throw new IOException("File '" + file + "' holds a corrupt ringbuffer header.", e);
+            }
+            
+            if(!existing) {
+                ring.flush();
+            }
+            
+            return ring;
+        } catch(UncheckedIOException e) {
+            channel.close();
+            throw e.getCause();
+        } catch(IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Returns when changes are written to the disk
+     * 
+     * @return the {@link Durability} of this ringbuffer
+     */
+    public Durability durability() {
+        return durability;
+    }
+    
+    /**
+     * Commits all records added so far by writing the current offset and size to the header, which is what reopening the file restores. Records must be completely written before flushing. Once the ringbuffer is full, adding a record overwrites the oldest record the header still refers to, so a crash while it is being written exposes it incomplete after reopening; the header itself only ever refers to the positions as of the last flush.
+     * <p>If the {@link Durability} is {@link Durability#FORCED FORCED} the records are forced to the disk before the header is updated, and the header afterwards. Otherwise writing both is left to the operating system.
+     */
+    public void flush() {
+        if(durability == Durability.FORCED) {
+            for(ByteBuffer segment : segments()) {
+                ((MappedByteBuffer)segment).force();
+            }
+        }
+        
+        if(positionsPending) {
+            header.putLong(OFFSET_POSITION, pendingOffset)
+                  .putLong(SIZE_POSITION, pendingSize);
+            positionsPending = false;
+        }
+        
+        if(durability == Durability.FORCED) {
+            header.force();
+        }
+    }
+    
+    /**
+     * Flushes the ringbuffer according to its {@link Durability} and closes the file.
+     * <p>The ringbuffer must not be used anymore afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+    
+    @Override
+    void positionsChanged(long offset, long size) {
+        //the record is not written yet, so the header is only updated by flush()
+        pendingOffset = offset;
+        pendingSize = size;
+        positionsPending = true;
+    }
+    
+    /* ************************************************************************
+     * HELPERS
+     */
+    
+    private static void verifyHeader(Path file, MappedByteBuffer header, int recordSize, long capacity) throws IOException {
+        if(header.getInt(MAGIC_POSITION) != MAGIC
+        || header.getInt(VERSION_POSITION) != VERSION) {
+            throw new IOException("File '" + file + "' does not hold a ringbuffer.");
+        }
+        
+        if(header.getInt(RECORD_SIZE_POSITION) != recordSize
+        || header.getLong(CAPACITY_POSITION) != capacity) {
+            throw new IllegalArgumentException("File '" + file + "' holds a ringbuffer with a record size of "
+                                             + header.getInt(RECORD_SIZE_POSITION) + " and a capacity of "
+                                             + header.getLong(CAPACITY_POSITION));
+        }
+    }
+    
+    private static MappedByteBuffer map(FileChannel channel, long position, int bytes) {
+        try {
+            MappedByteBuffer buffer = channel.map(MapMode.READ_WRITE, position, bytes); //grows the file as needed
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,487 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.crumbleworks.forge.crumbutil.validation.Parameters.greaterOrEqual;
+import static org.crumbleworks.forge.crumbutil.validation.Parameters.notNull;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.crumbleworks.forge.crumbutil.callbacks.ParameterizedCallback;
+
+/**
+ * Creates a fixed size, circular buffer of fixed-width records, which are stored outside of the java heap in direct {@link ByteBuffer ByteBuffers}.
+ * New records are added as the youngest record, the oldest record gets dropped.
+ * <p>Depending on the {@link Ordering} the order of the buffer is either oldest to youngest, like a {@link TailInRingBuffer}, or youngest to oldest, like a {@link HeadInRingBuffer}.
+ * <p>Records are read and written through a {@link Record} flyweight, which is bound to a slot of the buffer and can be reused for any number of records:
+ * <pre>
+ * OffHeapRingBuffer window = new OffHeapRingBuffer(16, 1_000_000);
+ * Record record = window.newRecord();
+ * 
+ * window.add(record).putLong(0, timestamp).putDouble(8, value);
+ * window.get(0, record).getDouble(8);
+ * </pre>
+ * <p>As the garbage collector never has to scan the records, this allows for windows of several gigabytes. The storage is split into segments of at most 1 GiB each.
+ * <p>This class is not synchronized.
+ * 
+ * @see TailInRingBuffer
+ * @see HeadInRingBuffer
+ * 
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+public class OffHeapRingBuffer {
+    private static final int MAX_SEGMENT_BYTES = 1 << 30;
+    
+    /**
+     * The order in which records of an {@link OffHeapRingBuffer} are indexed.
+     * 
+     * @author Michael Stocker
+     * @since 0.8.0
+     */
+    public static enum Ordering {
+        /**
+         * Index <code>0</code> is the oldest record, like in a {@link TailInRingBuffer}
+         */
+        OLDEST_FIRST,
+        /**
+         * Index <code>0</code> is the youngest record, like in a {@link HeadInRingBuffer}
+         */
+        YOUNGEST_FIRST;
+    }
+    
+    private final int recordSize;
+    private final long capacity;
+    private final Ordering ordering;
+    
+    private final ByteBuffer[] segments;
+    private final int segmentShift;
+    private final long segmentMask;
+    
+    private long size = 0;
+    
+    /*
+     * The slot of the oldest record, always inside [0, capacity)
+     */
+    private long offset = 0;
+    
+    /*
+     * Flyweight used for iterating
+     */
+    private final Record cursor = new Record();
+    
+    /**
+     * Constructs an empty ringbuffer, ordered oldest to youngest
+     * 
+     * @param recordSize the size of a single record in bytes
+     * @param capacity the amount of records the ringbuffer can hold
+     * 
+     * @throws IllegalArgumentException if the specified record size or capacity is negative or zero
+     */
+    public OffHeapRingBuffer(int recordSize, long capacity) {
+        this(recordSize, capacity, Ordering.OLDEST_FIRST);
+    }
+    
+    /**
+     * Constructs an empty ringbuffer
+     * 
+     * @param recordSize the size of a single record in bytes
+     * @param capacity the amount of records the ringbuffer can hold
+     * @param ordering the order in which records are indexed
+     * 
+     * @throws IllegalArgumentException if the specified record size or capacity is negative or zero
+     */
+    public OffHeapRingBuffer(int recordSize, long capacity, Ordering ordering) {
+        this(recordSize, capacity, ordering, MAX_SEGMENT_BYTES);
+    }
+    
+    /*
+     * Allows for tests to split the storage into smaller segments
+     */
+    OffHeapRingBuffer(int recordSize, long capacity, Ordering ordering, int maxSegmentBytes) {
+        this(recordSize, capacity, ordering, maxSegmentBytes, (position, bytes) -> ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder()));
+    }
+    
+    /*
+     * Allows for subclasses to provide the storage of the segments
+     */
+    OffHeapRingBuffer(int recordSize, long capacity, Ordering ordering, int maxSegmentBytes, SegmentAllocator allocator) {
+        if(recordSize <= 0 || recordSize > maxSegmentBytes) {
+            throw new IllegalArgumentException("Illegal Record Size: " + recordSize);
+        }
+        if(capacity <= 0) {
+            throw new IllegalArgumentException("Illegal Capacity: " + capacity);
+        }
+        
+        this.recordSize = recordSize;
+        this.capacity = capacity;
+        this.ordering = notNull(ordering);
+        
+        //a power of two records per segment, so slots can be split by shifting and masking
+        long recordsPerSegment = Integer.highestOneBit(maxSegmentBytes / recordSize);
+        segmentShift = Long.numberOfTrailingZeros(recordsPerSegment);
+        segmentMask = recordsPerSegment - 1;
+        
+        segments = new ByteBuffer[(int)((capacity + segmentMask) >>> segmentShift)];
+        for(int i = 0 ; i < segments.length ; i++) {
+            long records = Math.min(recordsPerSegment, capacity - ((long)i << segmentShift));
+            segments[i] = allocator.allocate(((long)i << segmentShift) * recordSize, (int)(records * recordSize));
+        }
+    }
+    
+    /**
+     * Returns the number of records in this ringbuffer
+     * 
+     * @return the number of records in this ringbuffer
+     */
+    public long size() {
+        return size;
+    }
+    
+    /**
+     * Returns the capacity of this ringbuffer
+     * 
+     * @return the amount of records this ringbuffer can hold
+     */
+    public long capacity() {
+        return capacity;
+    }
+    
+    /**
+     * Returns the size of a single record
+     * 
+     * @return the size of a single record in bytes
+     */
+    public int recordSize() {
+        return recordSize;
+    }
+    
+    /**
+     * Returns the order in which records are indexed
+     * 
+     * @return the {@link Ordering} of this ringbuffer
+     */
+    public Ordering ordering() {
+        return ordering;
+    }
+    
+    /**
+     * Creates a new, unbound flyweight for reading and writing records of this ringbuffer.
+     * 
+     * @return a new {@link Record}
+     */
+    public Record newRecord() {
+        return new Record();
+    }
+    
+    /**
+     * Adds a new youngest record, dropping the oldest record if the ringbuffer is at capacity, and binds the flyweight to it.
+     * <p>The slot is not cleared, it may still hold the bytes of a dropped record.
+     * 
+     * @param record the flyweight to bind to the new record
+     * 
+     * @return the bound flyweight
+     */
+    public Record add(Record record) {
+        long slot;
+        if(size < capacity) {
+            slot = wrap(offset + size++);
+        } else {
+            slot = offset;
+            if(++offset == capacity) {
+                offset = 0;
+            }
+        }
+        
+        positionsChanged(offset, size);
+        return bind(record, slot);
+    }
+    
+    /**
+     * Binds the flyweight to the record at the specified position in this ringbuffer.
+     * 
+     * @param index the index of the record, according to the {@link Ordering} of this ringbuffer
+     * @param record the flyweight to bind to the record
+     * 
+     * @return the bound flyweight
+     * @throws IllegalArgumentException if the index is outside of <code>0</code> to <code>{@linkplain #size()} -1</code>
+     */
+    public Record get(long index, Record record) {
+        greaterOrEqual(index, 0);
+        if(index >= size) {
+            throw new IllegalArgumentException("Index " + index + " is outside bounds.");
+        }
+        
+        return bind(record, slot(index));
+    }
+    
+    /**
+     * Calls the callback for every record, in the order of this ringbuffer. The passed in flyweight is only valid during the call.
+     * 
+     * @param callback the callback to be called for each record
+     */
+    public void forEach(ParameterizedCallback<Record> callback) {
+        for(long i = 0 ; i < size ; i++) {
+            callback.call(bind(cursor, slot(i)));
+        }
+    }
+    
+    /**
+     * Empties this ringbuffer. The memory is kept and reused.
+     */
+    public void clear() {
+        size = 0;
+        offset = 0;
+        
+        positionsChanged(offset, size);
+    }
+    
+    /*
+     * restores the positions of a ringbuffer whose storage already holds records
+     */
+    final void restorePositions(long offset, long size) {
+        if(offset < 0 || offset >= capacity || size < 0 || size > capacity) {
+            throw new IllegalArgumentException("Positions outside bounds; offset: " + offset + ", size: " + size);
+        }
+        
+        this.offset = offset;
+        this.size = size;
+    }
+    
+    /*
+     * called whenever the offset or size changed, allows for subclasses to track them
+     */
+    void positionsChanged(long offset, long size) {}
+    
+    /*
+     * gives subclasses access to the storage of the segments
+     */
+    final ByteBuffer[] segments() {
+        return segments;
+    }
+    
+    /*
+     * maps an index to the slot of the record
+     */
+    private final long slot(long index) {
+        return wrap(offset + (ordering == Ordering.OLDEST_FIRST ? index : size - 1 - index));
+    }
+    
+    /*
+     * wraps a slot inside [0, 2 * capacity) around to [0, capacity)
+     */
+    private final long wrap(long slot) {
+        return slot >= capacity ? slot - capacity : slot;
+    }
+    
+    private final Record bind(Record record, long slot) {
+        record.segment = segments[(int)(slot >>> segmentShift)];
+        record.base = (int)(slot & segmentMask) * recordSize;
+        record.recordSize = recordSize;
+        return record;
+    }
+    
+    /* ************************************************************************
+     * STORAGE
+     */
+    
+    /*
+     * Provides the storage for a single segment
+     */
+    @FunctionalInterface
+    static interface SegmentAllocator {
+        
+        /*
+         * position is the offset of the segment in bytes, relative to the start of the first segment
+         */
+        public ByteBuffer allocate(long position, int bytes);
+    }
+    
+    /* ************************************************************************
+     * FLYWEIGHT
+     */
+    
+    /**
+     * A flyweight, giving access to the fields of a single record of an {@link OffHeapRingBuffer}.
+     * <p>Fields are addressed by their offset in bytes, relative to the start of the record. A flyweight stays bound to the same slot until it is bound anew, so it will see whatever record is written to that slot later on.
+ * <p>Multi-byte values are stored in the byte order of the storage, which is the native order of the platform for an {@link OffHeapRingBuffer} and little-endian for a {@link MappedRingBuffer}.
+     * 
+     * @author Michael Stocker
+     * @since 0.8.0
+     */
+    public static final class Record {
+        private ByteBuffer segment;
+        private int base;
+        private int recordSize;
+        
+        private Record() {}
+        
+        /**
+         * Reads the byte at the given offset in bytes from the start of the record.
+         * 
+         * @param field the offset of the field in bytes
+         * 
+         * @return the value of the field
+         * 
+         * @throws IndexOutOfBoundsException if the field is negative or reaches past the end of the record
+         * @throws IllegalStateException if the flyweight is not bound to a slot
+         */
+        public final byte getByte(int field) {
+            return segment().get(position(field, Byte.BYTES));
+        }
+        
+        /**
+         * Writes a byte at the given offset in bytes from the start of the record.
+         * 
+         * @param field the offset of the field in bytes
+         * @param value the value to write
+         * 
+         * @return this flyweight, so writes can be chained
+         * 
+         * @throws IndexOutOfBoundsException if the field is negative or reaches past the end of the record
+         * @throws IllegalStateException if the flyweight is not bound to a slot
+         */
+        public final Record putByte(int field, byte value) {
+            segment().put(position(field, Byte.BYTES), value);
+            return this;
+        }
+        
+        /**
+         * Reads the int of 4 bytes starting at the given offset in bytes from the start of the record, in the byte order of the storage.
+         * 
+         * @param field the offset of the field in bytes
+         * 
+         * @return the value of the field
+         * 
+         * @throws IndexOutOfBoundsException if the field is negative or reaches past the end of the record
+         * @throws IllegalStateException if the flyweight is not bound to a slot
+         */
+        public final int getInt(int field) {
+            return segment().getInt(position(field, Integer.BYTES));
+        }
+        
+        /**
+         * Writes an int of 4 bytes starting at the given offset in bytes from the start of the record, in the byte order of the storage.
+         * 
+         * @param field the offset of the field in bytes
+         * @param value the value to write
+         * 
+         * @return this flyweight, so writes can be chained
+         * 
+         * @throws IndexOutOfBoundsException if the field is negative or reaches past the end of the record
+         * @throws IllegalStateException if the flyweight is not bound to a slot
+         */
+        public final Record putInt(int field, int value) {
+            segment().putInt(position(field, Integer.BYTES), value);
+            return this;
+        }
+        
+        /**
+         * Reads the long of 8 bytes starting at the given offset in bytes from the start of the record, in the byte order of the storage.
+         * 
+         * @param field the offset of the field in bytes
+         * 
+         * @return the value of the field
+         * 
+         * @throws IndexOutOfBoundsException if the field is negative or reaches past the end of the record
+         * @throws IllegalStateException if the flyweight is not bound to a slot
+         */
+        public final long getLong(int field) {
+            return segment().getLong(position(field, Long.BYTES));
+        }
+        
+        /**
+         * Writes a long of 8 bytes starting at the given offset in bytes from the start of the record, in the byte order of the storage.
+         * 
+         * @param field the offset of the field in bytes
+         * @param value the value to write
+         * 
+         * @return this flyweight, so writes can be chained
+         * 
+         * @throws IndexOutOfBoundsException if the field is negative or reaches past the end of the record
+         * @throws IllegalStateException if the flyweight is not bound to a slot
+         */
+        public final Record putLong(int field, long value) {
+            segment().putLong(position(field, Long.BYTES), value);
+            return this;
+        }
+        
+        /**
+         * Reads the float of 4 bytes starting at the given offset in bytes from the start of the record, in the byte order of the storage.
+         * 
+         * @param field the offset of the field in bytes
+         * 
+         * @return the value of the field
+         * 
+         * @throws IndexOutOfBoundsException if the field is negative or reaches past the end of the record
+         * @throws IllegalStateException if the flyweight is not bound to a slot
+         */
+        public final float getFloat(int field) {
+            return segment().getFloat(position(field, Float.BYTES));
+        }
+        
+        /**
+         * Writes a float of 4 bytes starting at the given offset in bytes from the start of the record, in the byte order of the storage.
+         * 
+         * @param field the offset of the field in bytes
+         * @param value the value to write
+         * 
+         * @return this flyweight, so writes can be chained
+         * 
+         * @throws IndexOutOfBoundsException if the field is negative or reaches past the end of the record
+         * @throws IllegalStateException if the flyweight is not bound to a slot
+         */
+        public final Record putFloat(int field, float value) {
+            segment().putFloat(position(field, Float.BYTES), value);
+            return this;
+        }
+        
+        /**
+         * Reads the double of 8 bytes starting at the given offset in bytes from the start of the record, in the byte order of the storage.
+         * 
+         * @param field the offset of the field in bytes
+         * 
+         * @return the value of the field
+         * 
+         * @throws IndexOutOfBoundsException if the field is negative or reaches past the end of the record
+         * @throws IllegalStateException if the flyweight is not bound to a slot
+         */
+        public final double getDouble(int field) {
+            return segment().getDouble(position(field, Double.BYTES));
+        }
+        
+        /**
+         * Writes a double of 8 bytes starting at the given offset in bytes from the start of the record, in the byte order of the storage.
+         * 
+         * @param field the offset of the field in bytes
+         * @param value the value to write
+         * 
+         * @return this flyweight, so writes can be chained
+         * 
+         * @throws IndexOutOfBoundsException if the field is negative or reaches past the end of the record
+         * @throws IllegalStateException if the flyweight is not bound to a slot
+         */
+        public final Record putDouble(int field, double value) {
+            segment().putDouble(position(field, Double.BYTES), value);
+            return this;
+        }
+        
+        private final ByteBuffer segment() {
+            if(segment == null) {
+                throw new IllegalStateException("Record is not bound to a slot.");
+            }
+            
+            return segment;
+        }
+        
+        /*
+         * check the field lies inside the record and map it to its position in the segment
+         */
+        private final int position(int field, int width) {
+            if(field < 0 || field > recordSize - width) {
+                throw new IndexOutOfBoundsException("Field at " + field + " with a width of " + width + " exceeds the record size of " + recordSize);
+            }
+            
+            return base + field;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A {@link Spliterator} over the internal array of a ringbuffer, which holds its elements oldest to youngest, starting at an arbitrary slot and wrapping around at the end of the array.
+ * <p>Positions are kept unwrapped, i.e. inside <code>[0, 2 * capacity)</code>, and only mapped to a slot on access. Splitting cuts a range at the wrap point first and halves it afterwards, so every split-off part is a contiguous segment of the array.
+ * <p>Elements are traversed either ascending, oldest to youngest like a {@link TailInRingBuffer}, or descending, youngest to oldest like a {@link HeadInRingBuffer}.
+ * 
+ * @author Michael Stocker
+ * @since 0.8.0
+ * 
+ * @param <E> the type of elements
+ */
+final class RingBufferSpliterator<E> implements Spliterator<E> {
+    private final Object[] data;
+    private final boolean descending;
+    
+    /*
+     * The remaining range [origin, fence), unwrapped
+     */
+    private long origin;
+    private long fence;
+    
+    /*
+     * the range has to lie inside [0, 2 * data.length) and must not span more than data.length positions
+     */
+    RingBufferSpliterator(Object[] data, long origin, long fence, boolean descending) {
+        this.data = data;
+        this.origin = origin;
+        this.fence = fence;
+        this.descending = descending;
+    }
+    
+    @Override
+    public boolean tryAdvance(Consumer<? super E> action) {
+        Objects.requireNonNull(action);
+        if(origin >= fence) {
+            return false;
+        }
+        
+        action.accept(element(descending ? --fence : origin++));
+        return true;
+    }
+    
+    @Override
+    public void forEachRemaining(Consumer<? super E> action) {
+        Objects.requireNonNull(action);
+        long lo = origin;
+        long hi = fence;
+        origin = fence;
+        
+        //the range falls into at most two contiguous segments, the first one up to the end of the array
+        int capacity = data.length;
+        int loSlot = slot(lo);
+        int firstPart = (int)Math.min(hi - lo, capacity - loSlot);
+        int secondPart = (int)(hi - lo) - firstPart;
+        
+        if(descending) {
+            for(int i = secondPart - 1 ; i >= 0 ; i--) {
+                action.accept(cast(data[i]));
+            }
+            for(int i = loSlot + firstPart - 1 ; i >= loSlot ; i--) {
+                action.accept(cast(data[i]));
+            }
+        } else {
+            for(int i = loSlot ; i < loSlot + firstPart ; i++) {
+                action.accept(cast(data[i]));
+            }
+            for(int i = 0 ; i < secondPart ; i++) {
+                action.accept(cast(data[i]));
+            }
+        }
+    }
+    
+    @Override
+    public Spliterator<E> trySplit() {
+        long lo = origin;
+        long hi = fence;
+        if(hi - lo < 2) {
+            return null;
+        }
+        
+        long capacity = data.length;
+        long mid = lo < capacity && hi > capacity ? capacity : (lo + hi) >>> 1; //wrap point first
+        
+        //the prefix in encounter order is split off
+        if(descending) {
+            fence = mid;
+            return new RingBufferSpliterator<>(data, mid, hi, true);
+        }
+        
+        origin = mid;
+        return new RingBufferSpliterator<>(data, lo, mid, false);
+    }
+    
+    @Override
+    public long estimateSize() {
+        return fence - origin;
+    }
+    
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED;
+    }
+    
+    private final E element(long position) {
+        return cast(data[slot(position)]);
+    }
+    
+    private final int slot(long position) {
+        return (int)(position >= data.length ? position - data.length : position);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <E> E cast(Object element) {
+        return (E)element;
+    }
+}
@@ -0,0 +1,198 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import java.util.Arrays;
+
+/**
+ * A window over the last <code>n</code> non-negative <code>long</code> samples, e.g. latencies, which answers quantile queries like the p99 of the window without copying or sorting it.
+ * <p>Samples are counted in a histogram of log-linear buckets: every power of two is split into <code>2^precisionBits</code> buckets of equal width, so a bucket is never wider than <code>2^-precisionBits</code> of its values. With the default precision of 7 bits, quantiles are accurate to within 1%.
+ * <p>The window itself only remembers the bucket of each sample, so when a sample drops out of the window its bucket is simply decremented. Bucket counts are kept in a Fenwick tree, so adding a sample as well as answering a quantile takes a few dozen steps at most, no matter the size of the window.
+ * <p>This class is not synchronized.
+ * 
+ * @see RollingStatsBuffer
+ * @see IntTailInRingBuffer
+ * 
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+public class RollingQuantileBuffer {
+    private static final int DEFAULT_PRECISION_BITS = 7;
+    private static final int MAX_PRECISION_BITS = 14;
+    
+    private final int precisionBits;
+    private final int bucketCount;
+    
+    /*
+     * Bucket of every sample in the window
+     */
+    private IntTailInRingBuffer window;
+    
+    /*
+     * Fenwick tree over the counts of the buckets, 1-based
+     */
+    private final int[] tree;
+    
+    /**
+     * Constructs an empty window with the specified capacity and a precision of 7 bits
+     * 
+     * @param capacity the number of samples the window holds
+     * 
+     * @throws IllegalArgumentException if the specified capacity is negative or zero
+     */
+    public RollingQuantileBuffer(int capacity) {
+        this(capacity, DEFAULT_PRECISION_BITS);
+    }
+    
+    /**
+     * Constructs an empty window with the specified capacity and precision
+     * 
+     * @param capacity the number of samples the window holds
+     * @param precisionBits the number of bits each power of two is split by, from <code>1</code> to <code>14</code>
+     * 
+     * @throws IllegalArgumentException if the specified capacity is negative or zero, or the precision is out of range
+     */
+    public RollingQuantileBuffer(int capacity, int precisionBits) {
+        if(precisionBits < 1 || precisionBits > MAX_PRECISION_BITS) {
+            throw new IllegalArgumentException("Illegal Precision: " + precisionBits);
+        }
+        
+        this.window = new IntTailInRingBuffer(capacity);
+        this.precisionBits = precisionBits;
+        this.bucketCount = (64 - precisionBits) << precisionBits;
+        this.tree = new int[bucketCount + 1];
+    }
+    
+    /**
+     * Returns the number of samples in this window
+     * 
+     * @return the number of samples in this window
+     */
+    public int size() {
+        return window.size();
+    }
+    
+    /**
+     * Returns the capacity of this window
+     * 
+     * @return the number of samples this window can hold
+     */
+    public int capacity() {
+        return window.capacity();
+    }
+    
+    /**
+     * Adds a sample to this window, dropping the oldest sample if the window is at capacity.
+     * 
+     * @param value the sample to add
+     * 
+     * @throws IllegalArgumentException if the sample is negative
+     */
+    public void add(long value) {
+        if(value < 0) {
+            throw new IllegalArgumentException("Negative samples cannot be added: " + value);
+        }
+        
+        if(window.size() == window.capacity()) {
+            update(window.get(0), -1); //the sample about to be overwritten
+        }
+        
+        int bucket = bucketOf(value);
+        window.add(bucket);
+        update(bucket, 1);
+    }
+    
+    /**
+     * Returns the value below or at which the given fraction of the samples in this window lie, e.g. <code>0.99</code> for the p99.
+     * <p>The result is the highest value of the bucket holding that sample, so it is never below the exact quantile and above it by less than the precision.
+     * 
+     * @param quantile the fraction of samples, from <code>0</code> to <code>1</code>
+     * 
+     * @return the value of the quantile, or <code>-1</code> if the window is empty
+     * @throws IllegalArgumentException if the quantile is outside of <code>0</code> to <code>1</code>
+     */
+    public long quantile(double quantile) {
+        if(!(quantile >= 0 && quantile <= 1)) {
+            throw new IllegalArgumentException("Illegal Quantile: " + quantile);
+        }
+        
+        int n = window.size();
+        if(n == 0) {
+            return -1;
+        }
+        
+        int rank = Math.max(1, (int)Math.ceil(quantile * n));
+        return highestValueOf(bucketOfRank(rank));
+    }
+    
+    /**
+     * Returns the median of the samples in this window, see {@link #quantile(double)}
+     * 
+     * @return the median, or <code>-1</code> if the window is empty
+     */
+    public long median() {
+        return quantile(0.5);
+    }
+    
+    /**
+     * Empties this window.
+     */
+    public void clear() {
+        window = new IntTailInRingBuffer(window.capacity());
+        Arrays.fill(tree, 0);
+    }
+    
+    /* ************************************************************************
+     * BUCKETS
+     */
+    
+    /*
+     * values below 2^precisionBits get a bucket each; above, the magnitude selects a block of 2^precisionBits buckets
+     * and the bits following the leading one select the bucket inside the block
+     */
+    final int bucketOf(long value) {
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        if(magnitude < precisionBits) {
+            return (int)value;
+        }
+        
+        int shift = magnitude - precisionBits;
+        int subBucket = (int)(value >>> shift) & ((1 << precisionBits) - 1);
+        return ((shift + 1) << precisionBits) + subBucket;
+    }
+    
+    final long highestValueOf(int bucket) {
+        int block = bucket >>> precisionBits;
+        if(block == 0) {
+            return bucket;
+        }
+        
+        int shift = block - 1;
+        long lowest = (long)((1 << precisionBits) + (bucket & ((1 << precisionBits) - 1))) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+    
+    /* ************************************************************************
+     * FENWICK TREE
+     */
+    
+    private final void update(int bucket, int delta) {
+        for(int i = bucket + 1 ; i <= bucketCount ; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+    
+    /*
+     * the bucket holding the sample of the given rank, 1-based, by descending the tree from its largest power of two
+     */
+    private final int bucketOfRank(int rank) {
+        int position = 0;
+        int remaining = rank;
+        for(int step = Integer.highestOneBit(bucketCount) ; step > 0 ; step >>>= 1) {
+            int next = position + step;
+            if(next <= bucketCount && tree[next] < remaining) {
+                position = next;
+                remaining -= tree[next];
+            }
+        }
+        return position; //the last 1-based position counting less samples than the rank, which makes it the 0-based bucket of the rank
+    }
+}
@@ -0,0 +1,277 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+/**
+ * A window over the last <code>n</code> <code>double</code> samples, which keeps sum, mean, variance, minimum and maximum of the window up to date as samples enter and leave it.
+ * <p>Order of the window is oldest to youngest, <code>0</code> to <code>{@linkplain #size()} -1</code>, like in a {@link DoubleTailInRingBuffer}.
+ * <p>Adding a sample costs constant work, no matter the size of the window:
+ * <ul>
+ *     <li>sum and mean are kept as a compensated running sum, which the dropped sample is subtracted from</li>
+ *     <li>the variance is kept as a running sum of squared deviations, updated for the sample entering and the sample leaving the window (Welford)</li>
+ *     <li>minimum and maximum are kept in monotonic queues, amortized constant work per sample</li>
+ * </ul>
+ * <p>This class is not synchronized.
+ * 
+ * @see DoubleTailInRingBuffer
+ * 
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+public class RollingStatsBuffer {
+    private DoubleTailInRingBuffer window;
+    
+    /*
+     * Running sum, with the error of the last additions to compensate (Kahan)
+     */
+    private double sum = 0;
+    private double compensation = 0;
+    
+    /*
+     * Sum of squared deviations from the mean
+     */
+    private double m2 = 0;
+    
+    /*
+     * Sequence of the next sample
+     */
+    private long count = 0;
+    
+    private final MonotonicQueue minima;
+    private final MonotonicQueue maxima;
+    
+    /**
+     * Constructs an empty window with the specified capacity
+     * 
+     * @param capacity the number of samples the window holds
+     * 
+     * @throws IllegalArgumentException if the specified capacity is negative or zero
+     */
+    public RollingStatsBuffer(int capacity) {
+        this.window = new DoubleTailInRingBuffer(capacity);
+        this.minima = new MonotonicQueue(capacity, false);
+        this.maxima = new MonotonicQueue(capacity, true);
+    }
+    
+    /**
+     * Returns the number of samples in this window
+     * 
+     * @return the number of samples in this window
+     */
+    public int size() {
+        return window.size();
+    }
+    
+    /**
+     * Returns the capacity of this window
+     * 
+     * @return the number of samples this window can hold
+     */
+    public int capacity() {
+        return window.capacity();
+    }
+    
+    /**
+     * Returns the sample at the specified position in this window.
+     * 
+     * @param index the index of the sample to return
+     * 
+     * @return the sample at the specified position
+     * @throws IllegalArgumentException if the index is outside of <code>0</code> to <code>{@linkplain #size()} -1</code>
+     */
+    public double get(int index) {
+        return window.get(index);
+    }
+    
+    /**
+     * Adds a sample to the end of this window, dropping the oldest sample if the window is at capacity.
+     * 
+     * @param value the sample to add
+     * 
+     * @throws IllegalArgumentException if the sample is <code>NaN</code>
+     */
+    public void add(double value) {
+        if(Double.isNaN(value)) {
+            throw new IllegalArgumentException("NaN cannot be added to a rolling window.");
+        }
+        
+        int n = window.size();
+        double oldMean = mean();
+        
+        if(n < window.capacity()) {
+            window.add(value);
+            accumulate(value);
+            if(n > 0) { //a sample entering the window
+                m2 += (value - oldMean) * (value - mean());
+            }
+        } else {
+            double dropped = window.get(0); //the sample about to be overwritten
+            window.add(value);
+            accumulate(value);
+            accumulate(-dropped);
+            m2 += (value - dropped) * (value - mean() + dropped - oldMean); //a sample replacing another one
+        }
+        
+        long sequence = count++;
+        long oldest = count - window.size();
+        minima.add(sequence, value, oldest);
+        maxima.add(sequence, value, oldest);
+    }
+    
+    /**
+     * Returns the sum of all samples in this window
+     * 
+     * @return the sum, <code>0</code> if the window is empty
+     */
+    public double sum() {
+        return sum;
+    }
+    
+    /**
+     * Returns the arithmetic mean of all samples in this window
+     * 
+     * @return the mean, <code>NaN</code> if the window is empty
+     */
+    public double mean() {
+        int n = window.size();
+        return n == 0 ? Double.NaN : sum / n;
+    }
+    
+    /**
+     * Returns the population variance of all samples in this window
+     * 
+     * @return the variance, <code>NaN</code> if the window is empty
+     */
+    public double variance() {
+        int n = window.size();
+        return n == 0 ? Double.NaN : Math.max(0, m2) / n;
+    }
+    
+    /**
+     * Returns the sample variance of all samples in this window, i.e. with Bessel's correction
+     * 
+     * @return the sample variance, <code>NaN</code> if the window holds less than two samples
+     */
+    public double sampleVariance() {
+        int n = window.size();
+        return n < 2 ? Double.NaN : Math.max(0, m2) / (n - 1);
+    }
+    
+    /**
+     * Returns the population standard deviation of all samples in this window
+     * 
+     * @return the standard deviation, <code>NaN</code> if the window is empty
+     */
+    public double standardDeviation() {
+        return Math.sqrt(variance());
+    }
+    
+    /**
+     * Returns the smallest sample in this window
+     * 
+     * @return the smallest sample, <code>NaN</code> if the window is empty
+     */
+    public double min() {
+        return minima.first();
+    }
+    
+    /**
+     * Returns the largest sample in this window
+     * 
+     * @return the largest sample, <code>NaN</code> if the window is empty
+     */
+    public double max() {
+        return maxima.first();
+    }
+    
+    /**
+     * Copies all samples of this window, oldest to youngest, into the specified array, starting at index <code>0</code>.
+     * <p>If the array is too small to hold the samples, a new array of the size of this window is allocated instead.
+     * 
+     * @param dest the array into which the samples are to be copied
+     * 
+     * @return the array containing the samples of this window
+     * @throws NullPointerException if the specified array is <code>null</code>
+     */
+    public double[] toArray(double[] dest) {
+        return window.toArray(dest);
+    }
+    
+    /**
+     * Empties this window and resets all statistics.
+     */
+    public void clear() {
+        window = new DoubleTailInRingBuffer(window.capacity());
+        count = 0;
+        sum = 0;
+        compensation = 0;
+        m2 = 0;
+        minima.clear();
+        maxima.clear();
+    }
+    
+    /*
+     * adds to the running sum, compensating for the lost low-order bits
+     */
+    private final void accumulate(double value) {
+        double y = value - compensation;
+        double t = sum + y;
+        compensation = (t - sum) - y;
+        sum = t;
+    }
+    
+    /* ************************************************************************
+     * MONOTONIC QUEUE
+     */
+    
+    /*
+     * Holds the candidates for the minimum, or maximum, of the window in a ring of primitive arrays: sequences increase from
+     * first to last, values are strictly monotonic, so the first value is the minimum, or maximum, of the window
+     */
+    private static final class MonotonicQueue {
+        private final long[] sequences;
+        private final double[] values;
+        private final boolean descending;
+        
+        private int first = 0;
+        private int size = 0;
+        
+        MonotonicQueue(int capacity, boolean descending) {
+            this.sequences = new long[capacity];
+            this.values = new double[capacity];
+            this.descending = descending;
+        }
+        
+        void add(long sequence, double value, long oldest) {
+            //candidates which left the window
+            while(size > 0 && sequences[first] < oldest) {
+                first = wrap(first + 1);
+                size--;
+            }
+            
+            //candidates which can never be first again, as the new value is at least as small, or large, and stays longer
+            while(size > 0 && !beats(values[wrap(first + size - 1)], value)) {
+                size--;
+            }
+            
+            int last = wrap(first + size++);
+            sequences[last] = sequence;
+            values[last] = value;
+        }
+        
+        double first() {
+            return size == 0 ? Double.NaN : values[first];
+        }
+        
+        void clear() {
+            first = 0;
+            size = 0;
+        }
+        
+        private final boolean beats(double candidate, double value) {
+            return descending ? candidate > value : candidate < value;
+        }
+        
+        private final int wrap(int i) {
+            return i >= values.length ? i - values.length : i;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * A sequence counter, i.e. an atomically updatable <code>long</code>, that is padded to fill a cache line of its own.
+ * <p>Counters that are written by different threads, like the positions of a producer and a consumer, would otherwise likely end up on the same cache line and stall each other (false sharing).
+ * 
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+public final class Sequence extends SequenceRightPadding {
+    private static final AtomicLongFieldUpdater<SequenceValue> VALUE = AtomicLongFieldUpdater.newUpdater(SequenceValue.class, "value");
+    
+    /**
+     * Creates a sequence starting at <code>0</code>
+     */
+    public Sequence() {
+        this(0);
+    }
+    
+    /**
+     * Creates a sequence starting at the given value
+     * 
+     * @param initialValue the initial value of the sequence
+     */
+    public Sequence(long initialValue) {
+        VALUE.lazySet(this, initialValue);
+    }
+    
+    /**
+     * @return the current value, read with volatile semantics
+     */
+    public long get() {
+        return value;
+    }
+    
+    /**
+     * Sets the value with volatile semantics.
+     * 
+     * @param value the new value
+     */
+    public void set(long value) {
+        this.value = value;
+    }
+    
+    /**
+     * Sets the value with ordered semantics; writes before are not reordered past this write, but other threads may see the new value a little later.
+     * <p>Much cheaper than {@link #set(long)}, this is the way for a single writer to publish progress.
+     * 
+     * @param value the new value
+     */
+    public void lazySet(long value) {
+        VALUE.lazySet(this, value);
+    }
+    
+    /**
+     * Atomically sets the value, if it currently is the expected value.
+     * 
+     * @param expected the expected value
+     * @param value the new value
+     * 
+     * @return <code>true</code> if the value was set, <code>false</code> if the current value was not the expected one
+     */
+    public boolean compareAndSet(long expected, long value) {
+        return VALUE.compareAndSet(this, expected, value);
+    }
+    
+    /**
+     * Atomically adds to the value.
+     * 
+     * @param delta the value to add
+     * 
+     * @return the new value
+     */
+    public long addAndGet(long delta) {
+        return VALUE.addAndGet(this, delta);
+    }
+    
+    @Override
+    public String toString() {
+        return Long.toString(value);
+    }
+}
+
+/*
+ * The padding is spread over a class hierarchy, as the JVM keeps the fields of a superclass ahead of those of its subclasses
+ */
+abstract class SequenceLeftPadding {
+    long p01, p02, p03, p04, p05, p06, p07;
+}
+
+abstract class SequenceValue extends SequenceLeftPadding {
+    volatile long value;
+}
+
+abstract class SequenceRightPadding extends SequenceValue {
+    long p09, p10, p11, p12, p13, p14, p15;
+}
@@ -0,0 +1,376 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.crumbleworks.forge.crumbutil.validation.Parameters.greaterOrEqual;
+import static org.crumbleworks.forge.crumbutil.validation.Parameters.notNull;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import org.crumbleworks.forge.crumbutil.callbacks.ParameterizedCallback;
+import org.crumbleworks.forge.crumbutil.util.MathUtil;
+
+/**
+ * A ring of preallocated, reusable slots, into which any number of producer threads write and from which any number of {@link Reader Readers} read, without taking a lock.
+ * <p>Every slot is addressed by a sequence, counting up from <code>0</code>. A producer claims a range of sequences with a single compare-and-set, fills the slots of the range and publishes them:
+ * <pre>
+ * long hi = ring.claim(2);
+ * ring.get(hi - 1).set(first);
+ * ring.get(hi).set(second);
+ * ring.publish(hi - 1, hi);
+ * </pre>
+ * <p>Slots are marked as published one by one, so producers never wait for each other. Each {@link Reader} sees every published slot, in the order of the sequences, and processes them in batches up to the highest slot that is published without a gap.
+ * <p>A slot is only handed out again once every registered {@link Reader} has processed it, so slow readers hold up the producers. Without any readers the ring simply overwrites its oldest slots.
+ * <p>The slots are created once, by the given factory, and reused from then on; the ring never allocates after construction.
+ * 
+ * @param <E> the type of the slots
+ * 
+ * @see SpscRingQueue
+ * @see LimitedBuffer
+ * 
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+public final class SequencedRingBuffer<E> {
+    private static final Sequence[] NO_READERS = new Sequence[0];
+    
+    private final Object[] slots;
+    private final int capacity;
+    private final int mask;
+    private final int roundShift;
+    
+    /*
+     * The round in which each slot was last published, the round of a sequence being sequence / capacity
+     */
+    private final AtomicIntegerArray published;
+    
+    /*
+     * The highest claimed sequence
+     */
+    private final Sequence cursor = new Sequence(-1);
+    
+    /*
+     * The lowest sequence processed by all readers, as last seen by a producer
+     */
+    private final Sequence gatingCache = new Sequence(-1);
+    
+    /*
+     * Sequences of the registered readers; replaced as a whole on changes
+     */
+    private volatile Sequence[] readers = NO_READERS;
+    
+    /**
+     * Constructs a ring, filling all slots with the given factory
+     * 
+     * @param capacity the minimum number of slots, rounded up to the next power of two
+     * @param factory creates the slots
+     * 
+     * @throws IllegalArgumentException if the specified capacity is negative or zero, or larger than <code>2^30</code>
+     */
+    public SequencedRingBuffer(int capacity, Supplier<E> factory) {
+        if(capacity <= 0) {
+            throw new IllegalArgumentException("Illegal Capacity: " + capacity);
+        }
+        notNull(factory);
+        
+        this.capacity = MathUtil.nextPowerOfTwo(capacity);
+        this.mask = this.capacity - 1;
+        this.roundShift = Integer.numberOfTrailingZeros(this.capacity);
+        
+        this.slots = new Object[this.capacity];
+        for(int i = 0 ; i < this.capacity ; i++) {
+            slots[i] = factory.get();
+        }
+        
+        int[] unpublished = new int[this.capacity];
+        Arrays.fill(unpublished, -1);
+        this.published = new AtomicIntegerArray(unpublished);
+    }
+    
+    /**
+     * Returns the number of slots of this ring
+     * 
+     * @return the number of slots
+     */
+    public int capacity() {
+        return capacity;
+    }
+    
+    /**
+     * Returns the highest sequence claimed so far
+     * 
+     * @return the highest claimed sequence, or <code>-1</code> if none was claimed yet
+     */
+    public long cursor() {
+        return cursor.get();
+    }
+    
+    /**
+     * Returns the slot of the given sequence. Producers use it to fill a claimed slot, readers receive it from {@link Reader#poll(ParameterizedCallback)}.
+     * 
+     * @param sequence the sequence of the slot
+     * 
+     * @return the slot
+     */
+    @SuppressWarnings("unchecked")
+    public E get(long sequence) {
+        return (E)slots[(int)sequence & mask];
+    }
+    
+    /* ************************************************************************
+     * PRODUCING
+     */
+    
+    /**
+     * Claims the next slot, waiting for readers to free it up if necessary.
+     * 
+     * @return the sequence of the claimed slot
+     */
+    public long claim() {
+        return claim(1);
+    }
+    
+    /**
+     * Claims the next <code>n</code> slots, waiting for readers to free them up if necessary.
+     * 
+     * @param n the number of slots to claim
+     * 
+     * @return the highest claimed sequence, the range being <code>[hi - n + 1, hi]</code>
+     * @throws IllegalArgumentException if <code>n</code> is smaller than <code>1</code> or larger than the capacity
+     */
+    public long claim(int n) {
+        checkClaimSize(n);
+        
+        long current;
+        long next;
+        for(;;) {
+            current = cursor.get();
+            next = current + n;
+            
+            if(!hasRoom(next, current)) {
+                LockSupport.parkNanos(1L);
+                continue;
+            }
+            
+            if(cursor.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+    
+    /**
+     * Claims the next <code>n</code> slots, if readers have freed them up already.
+     * 
+     * @param n the number of slots to claim
+     * 
+     * @return the highest claimed sequence, the range being <code>[hi - n + 1, hi]</code>, or <code>-1</code> if there is not enough room
+     * @throws IllegalArgumentException if <code>n</code> is smaller than <code>1</code> or larger than the capacity
+     */
+    public long tryClaim(int n) {
+        checkClaimSize(n);
+        
+        long current;
+        long next;
+        do {
+            current = cursor.get();
+            next = current + n;
+            
+            if(!hasRoom(next, current)) {
+                return -1;
+            }
+        } while(!cursor.compareAndSet(current, next));
+        
+        return next;
+    }
+    
+    /**
+     * Publishes a filled slot, making it visible to readers
+     * 
+     * @param sequence the sequence of the slot
+     */
+    public void publish(long sequence) {
+        published.lazySet((int)sequence & mask, (int)(sequence >>> roundShift));
+    }
+    
+    /**
+     * Publishes a range of filled slots, making them visible to readers
+     * 
+     * @param lo the lowest sequence of the range
+     * @param hi the highest sequence of the range
+     */
+    public void publish(long lo, long hi) {
+        for(long sequence = lo ; sequence <= hi ; sequence++) {
+            publish(sequence);
+        }
+    }
+    
+    /**
+     * Returns whether the slot of the given sequence was published already
+     * 
+     * @param sequence the sequence of the slot
+     * 
+     * @return <code>true</code> if the slot is published
+     */
+    public boolean isPublished(long sequence) {
+        return published.get((int)sequence & mask) == (int)(sequence >>> roundShift);
+    }
+    
+    /*
+     * whether the slots up to next can be claimed without overwriting a slot a reader has yet to process
+     */
+    private final boolean hasRoom(long next, long current) {
+        long wrapPoint = next - capacity;
+        if(wrapPoint <= gatingCache.get()) {
+            return true;
+        }
+        
+        long minimum = minimumReaderSequence(current);
+        gatingCache.lazySet(minimum);
+        return wrapPoint <= minimum;
+    }
+    
+    private final void checkClaimSize(int n) {
+        if(n < 1 || n > capacity) {
+            throw new IllegalArgumentException("Illegal number of slots to claim: " + n);
+        }
+    }
+    
+    private final long minimumReaderSequence(long current) {
+        long minimum = current;
+        for(Sequence reader : readers) {
+            minimum = Math.min(minimum, reader.get());
+        }
+        return minimum;
+    }
+    
+    /* ************************************************************************
+     * READING
+     */
+    
+    /**
+     * Registers a new reader, which starts reading after the highest sequence claimed so far.
+     * 
+     * @return the new reader
+     */
+    public Reader newReader() {
+        Sequence sequence = new Sequence(cursor.get());
+        
+        synchronized(this) {
+            Sequence[] current = readers;
+            Sequence[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = sequence;
+            readers = updated;
+        }
+        
+        //a producer may have claimed past the reader in the meantime, without having seen it
+        sequence.set(cursor.get());
+        return new Reader(sequence);
+    }
+    
+    private final synchronized void removeReader(Sequence sequence) {
+        Sequence[] current = readers;
+        for(int i = 0 ; i < current.length ; i++) {
+            if(current[i] == sequence) {
+                Sequence[] updated = new Sequence[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                readers = updated;
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Reads the slots of a {@link SequencedRingBuffer}, in the order of their sequences, and tracks its progress in a {@link Sequence} of its own.
+     * <p>A reader must only be used by a single thread at a time.
+     * 
+     * @author Michael Stocker
+     * @since 0.8.0
+     */
+    public final class Reader {
+        private final Sequence sequence;
+        
+        private Reader(Sequence sequence) {
+            this.sequence = sequence;
+        }
+        
+        /**
+         * Returns the highest sequence processed by this reader
+         * 
+         * @return the highest processed sequence
+         */
+        public long sequence() {
+            return sequence.get();
+        }
+        
+        /**
+         * Returns the number of published slots this reader has yet to process
+         * 
+         * @return the number of slots available to this reader
+         */
+        public long available() {
+            long next = sequence.get() + 1;
+            return highestPublished(next, cursor.get()) - next + 1;
+        }
+        
+        /**
+         * Passes all slots published at the time of the call to the callback, in the order of their sequences.
+         * 
+         * @param callback the callback to be called for each slot
+         * 
+         * @return the number of slots processed
+         */
+        public int poll(ParameterizedCallback<E> callback) {
+            return poll(callback, Integer.MAX_VALUE);
+        }
+        
+        /**
+         * Passes up to the given number of published slots to the callback, in the order of their sequences.
+         * <p>The slots are freed up for producers as one batch, after the last slot has been passed on. A slot is only valid during the call, as it is reused afterwards. If the callback throws, all slots passed on so far count as processed.
+         * 
+         * @param callback the callback to be called for each slot
+         * @param limit the maximum number of slots to process
+         * 
+         * @return the number of slots processed
+         * @throws IllegalArgumentException if the limit is negative
+         */
+        public int poll(ParameterizedCallback<E> callback, int limit) {
+            notNull(callback);
+            greaterOrEqual(limit, 0);
+            
+            long last = sequence.get();
+            long hi = highestPublished(last + 1, Math.min(cursor.get(), last + limit));
+            
+            long processed = last;
+            try {
+                while(processed < hi) {
+                    callback.call(get(++processed));
+                }
+            } finally {
+                sequence.lazySet(processed);
+            }
+            
+            return (int)(processed - last);
+        }
+        
+        /**
+         * Unregisters this reader, so it no longer holds up producers. The reader must not be used anymore afterwards.
+         */
+        public void close() {
+            removeReader(sequence);
+        }
+        
+        /*
+         * the highest sequence inside [lo, available] up to which all slots are published
+         */
+        private final long highestPublished(long lo, long available) {
+            for(long sequence = lo ; sequence <= available ; sequence++) {
+                if(!isPublished(sequence)) {
+                    return sequence - 1;
+                }
+            }
+            return available;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.crumbleworks.forge.crumbutil.validation.Parameters.greaterOrEqual;
+import static org.crumbleworks.forge.crumbutil.validation.Parameters.notNull;
+
+import org.crumbleworks.forge.crumbutil.callbacks.ParameterizedCallback;
+import org.crumbleworks.forge.crumbutil.util.MathUtil;
+
+/**
+ * A bounded, lock-free queue for exactly one producer thread and one consumer thread, backed by a ring of slots.
+ * <p>Other than a {@link TailInRingBuffer} a full queue does not drop its oldest element, {@link #offer(Object)} fails instead. Other than a {@link LimitedBuffer} neither side ever takes a lock.
+ * <p>The positions of producer and consumer are kept in padded {@link Sequence Sequences} and published with ordered writes only. Each side caches the last seen position of the other side, so it only has to read the other side's cache line once the cached position is used up. Neither offering nor polling allocates.
+ * <p>Only a single thread may call {@link #offer(Object)}, and only a single thread may call {@link #poll()} and the <code>drain</code> methods. {@link #size()} and {@link #isEmpty()} may be called by any thread, but are only a snapshot.
+ * 
+ * @param <E> the type of elements held in this queue
+ * 
+ * @see TailInRingBuffer
+ * @see LimitedBuffer
+ * 
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+public final class SpscRingQueue<E> {
+    private final Object[] slots;
+    private final int capacity;
+    private final int mask;
+    
+    /*
+     * Position of the next element to be offered; written by the producer only
+     */
+    private final Sequence tail = new Sequence();
+    
+    /*
+     * Position of the next element to be polled; written by the consumer only
+     */
+    private final Sequence head = new Sequence();
+    
+    /*
+     * Last seen positions of the other side; each is only touched by one side, but kept in a padded sequence, so the two never share a cache line
+     */
+    private final Sequence producerHeadCache = new Sequence();
+    private final Sequence consumerTailCache = new Sequence();
+    
+    /**
+     * Constructs an empty queue
+     * 
+     * @param capacity the minimum capacity of the queue, rounded up to the next power of two
+     * 
+     * @throws IllegalArgumentException if the specified capacity is negative or zero, or larger than <code>2^30</code>
+     */
+    public SpscRingQueue(int capacity) {
+        if(capacity <= 0) {
+            throw new IllegalArgumentException("Illegal Capacity: " + capacity);
+        }
+        
+        this.capacity = MathUtil.nextPowerOfTwo(capacity);
+        this.mask = this.capacity - 1;
+        this.slots = new Object[this.capacity];
+    }
+    
+    /**
+     * Returns the capacity of this queue
+     * 
+     * @return the amount of elements this queue can hold
+     */
+    public int capacity() {
+        return capacity;
+    }
+    
+    /**
+     * Returns the number of elements in this queue, at the time of the call
+     * 
+     * @return the number of elements in this queue
+     */
+    public int size() {
+        //read the head first, so a concurrent poll can only make the result smaller than the actual size, never negative
+        long h = head.get();
+        return (int)Math.min(capacity, Math.max(0, tail.get() - h));
+    }
+    
+    /**
+     * Returns whether this queue is empty, at the time of the call
+     * 
+     * @return <code>true</code> if this queue holds no elements
+     */
+    public boolean isEmpty() {
+        return tail.get() == head.get();
+    }
+    
+    /**
+     * Adds the element at the end of this queue, if it is not full. Must only be called by the producer thread.
+     * 
+     * @param element the element to add
+     * 
+     * @return <code>true</code> if the element was added, <code>false</code> if the queue is full
+     * @throws IllegalArgumentException if the element is <code>null</code>
+     */
+    public boolean offer(E element) {
+        notNull(element);
+        
+        long t = tail.get();
+        long wrapPoint = t - capacity;
+        if(producerHeadCache.get() <= wrapPoint) {
+            long h = head.get();
+            producerHeadCache.lazySet(h);
+            if(h <= wrapPoint) {
+                return false;
+            }
+        }
+        
+        slots[(int)t & mask] = element;
+        tail.lazySet(t + 1); //publishes the slot
+        return true;
+    }
+    
+    /**
+     * Removes and returns the element at the beginning of this queue. Must only be called by the consumer thread.
+     * 
+     * @return the removed element, or <code>null</code> if the queue is empty
+     */
+    public E poll() {
+        long h = head.get();
+        if(h >= consumerTailCache.get()) {
+            long t = tail.get();
+            consumerTailCache.lazySet(t);
+            if(h >= t) {
+                return null;
+            }
+        }
+        
+        E element = take(h);
+        head.lazySet(h + 1); //releases the slot
+        return element;
+    }
+    
+    /**
+     * Removes all elements available at the time of the call and passes them to the callback, oldest first. Must only be called by the consumer thread.
+     * 
+     * @param callback the callback to be called for each element
+     * 
+     * @return the number of elements drained
+     */
+    public int drain(ParameterizedCallback<E> callback) {
+        return drain(callback, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Removes up to the given number of elements and passes them to the callback, oldest first. Must only be called by the consumer thread.
+     * <p>The slots are released to the producer as one batch, after the last element has been passed on. If the callback throws, all elements passed on so far count as removed.
+     * 
+     * @param callback the callback to be called for each element
+     * @param limit the maximum number of elements to drain
+     * 
+     * @return the number of elements drained
+     * @throws IllegalArgumentException if the limit is negative
+     */
+    public int drain(ParameterizedCallback<E> callback, int limit) {
+        notNull(callback);
+        greaterOrEqual(limit, 0);
+        
+        long h = head.get();
+        long t = tail.get();
+        consumerTailCache.lazySet(t);
+        
+        long end = Math.min(t, h + limit);
+        long next = h;
+        try {
+            while(next < end) {
+                callback.call(take(next++));
+            }
+        } finally {
+            head.lazySet(next);
+        }
+        
+        return (int)(next - h);
+    }
+    
+    /*
+     * removes the element from its slot, so the queue doesn't keep it alive
+     */
+    @SuppressWarnings("unchecked")
+    private final E take(long position) {
+        int slot = (int)position & mask;
+        E element = (E)slots[slot];
+        slots[slot] = null;
+        return element;
+    }
+}
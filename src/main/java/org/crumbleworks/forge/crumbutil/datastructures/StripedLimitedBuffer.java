@@ -0,0 +1,301 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.crumbleworks.forge.crumbutil.validation.Parameters.greaterOrEqual;
+import static org.crumbleworks.forge.crumbutil.validation.Parameters.notNull;
+
+import java.lang.reflect.Array;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.crumbleworks.forge.crumbutil.util.MathUtil;
+
+/**
+ * A limited buffer like {@link LimitedBuffer}, whose writes scale with the
+ * number of writing threads.
+ * 
+ * <p>Writes go to one of several stripes, chosen by the writing thread, so
+ * threads do not contend for a shared lock. Every entry is tagged with a
+ * sequence number taken from a single atomic counter, and reads merge the
+ * stripes in sequence order, so they see the same newest entries, in the
+ * same order, as they would in a {@link LimitedBuffer}.
+ * 
+ * <p>Every stripe can hold the full capacity, as a single thread may do all
+ * the writing, so the memory needed grows with the number of stripes.
+ * 
+ * <p>Reads copy the stripes one after the other; entries written during a
+ * read may or may not be part of its result.
+ * 
+ * @author Michael Stocker
+ * @since 0.8.0
+ * 
+ * @param <E> the element held by this buffer
+ */
+public class StripedLimitedBuffer<E> {
+    private final Class<E> type;
+    private final int capacity;
+    
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    
+    private final AtomicLong sequence = new AtomicLong();
+    
+    /**
+     * Initializes a buffer with the given capacity and one stripe per
+     * available processor, rounded up to the next power of two.
+     * 
+     * @param capacity the capacity in elements
+     * @param type the type of elements stored in this buffer
+     */
+    public StripedLimitedBuffer(int capacity, Class<E> type) {
+        this(capacity, Runtime.getRuntime().availableProcessors(), type);
+    }
+    
+    /**
+     * Initializes a buffer with the given capacity and at least the given
+     * number of stripes.
+     * 
+     * @param capacity the capacity in elements
+     * @param stripes the number of stripes, rounded up to the next power of
+     *        two
+     * @param type the type of elements stored in this buffer
+     * 
+     * @throws IllegalArgumentException if capacity or stripes are negative
+     *         or zero
+     */
+    public StripedLimitedBuffer(int capacity, int stripes, Class<E> type) {
+        if(capacity <= 0) {
+            throw new IllegalArgumentException("Illegal Capacity: " + capacity);
+        }
+        if(stripes <= 0) {
+            throw new IllegalArgumentException("Illegal number of Stripes: " + stripes);
+        }
+        
+        this.type = notNull(type);
+        this.capacity = capacity;
+        
+        this.stripes = new Stripe[MathUtil.nextPowerOfTwo(stripes)];
+        for(int i = 0 ; i < this.stripes.length ; i++) {
+            this.stripes[i] = new Stripe(capacity);
+        }
+        this.stripeMask = this.stripes.length - 1;
+    }
+    
+    /**
+     * Writes the given element to the stripe of the current thread.
+     * 
+     * @param element the element to be written to this buffer
+     */
+    public void write(final E element) {
+        notNull(element);
+        
+        Stripe stripe = stripes[stripeOfCurrentThread()];
+        try {
+            stripe.lock.lock();
+            
+            //taken under the stripe lock, so sequences inside a stripe only ever increase
+            stripe.add(sequence.getAndIncrement(), element);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+    
+    /**
+     * Clears the buffer, effectively emptying it.
+     */
+    public void clear() {
+        for(Stripe stripe : stripes) {
+            try {
+                stripe.lock.lock();
+                
+                stripe.clear();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+    
+    /**
+     * Reads the last entry from the buffer, if there is anything to read.
+     * 
+     * @return the stored element or <code>null</code>
+     */
+    public E read() {
+        E[] last = read(1);
+        return last.length == 0 ? null : last[0];
+    }
+    
+    /**
+     * Reads up to the last <i>n</i> entries from the buffer, oldest first.
+     * 
+     * @param entries the number of entries to read
+     * 
+     * @return an array of elements with a length between <code>0</code> and
+     *         <code>entries</code>
+     */
+    @SuppressWarnings("unchecked")
+    public E[] read(int entries) {
+        greaterOrEqual(entries, 0);
+        entries = Math.min(entries, capacity);
+        
+        //copy the newest entries of every stripe, each of them might hold all of the newest ones
+        long[][] sequences = new long[stripes.length][];
+        Object[][] elements = new Object[stripes.length][];
+        int[] cursors = new int[stripes.length];
+        for(int i = 0 ; i < stripes.length ; i++) {
+            Stripe stripe = stripes[i];
+            try {
+                stripe.lock.lock();
+                
+                int copied = Math.min(entries, stripe.size);
+                sequences[i] = new long[copied];
+                elements[i] = new Object[copied];
+                stripe.copyNewest(copied, sequences[i], elements[i]);
+                cursors[i] = copied - 1;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        
+        //merge from the newest end, always taking the highest sequence of all stripes
+        E[] res = (E[])Array.newInstance(type, entries);
+        int filled = 0;
+        while(filled < entries) {
+            int newest = -1;
+            for(int i = 0 ; i < stripes.length ; i++) {
+                if(cursors[i] >= 0
+                && (newest == -1 || sequences[i][cursors[i]] > sequences[newest][cursors[newest]])) {
+                    newest = i;
+                }
+            }
+            
+            if(newest == -1) { //less entries than asked for
+                break;
+            }
+            
+            res[entries - 1 - filled++] = (E)elements[newest][cursors[newest]--];
+        }
+        
+        if(filled < entries) { //move them to the front
+            E[] shorter = (E[])Array.newInstance(type, filled);
+            System.arraycopy(res, entries - filled, shorter, 0, filled);
+            return shorter;
+        }
+        
+        return res;
+    }
+    
+    /**
+     * @return the amount of entries that can currently be read
+     */
+    public int getSize() {
+        long size = 0;
+        for(Stripe stripe : stripes) {
+            try {
+                stripe.lock.lock();
+                
+                size += stripe.size;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        
+        return (int)Math.min(size, capacity);
+    }
+    
+    /**
+     * @return the amount of entries this buffer can hold
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    /**
+     * @return the number of stripes
+     */
+    public int getStripes() {
+        return stripes.length;
+    }
+    
+    /**
+     * Spreads the thread ids over the stripes, consecutive ids end up on
+     * different stripes.
+     * 
+     * @return the index of the stripe of the current thread
+     */
+    @SuppressWarnings("deprecation")
+    private final int stripeOfCurrentThread() {
+        long id = Thread.currentThread().getId();
+        return (int)((id * 0x9E3779B97F4A7C15L) >>> 40) & stripeMask;
+    }
+    
+    /* **********************************************************************
+     * STRIPE
+     */
+    
+    /**
+     * A ring of entries, each made up of its sequence and its element.
+     * 
+     * @author Michael Stocker
+     * @since 0.8.0
+     */
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        
+        private final long[] sequences;
+        private final Object[] elements;
+        
+        /**
+         * The oldest entry in this stripe
+         */
+        private int head = 0;
+        /**
+         * The amount of entries currently in this stripe
+         */
+        private int size = 0;
+        
+        private Stripe(int capacity) {
+            sequences = new long[capacity];
+            elements = new Object[capacity];
+        }
+        
+        private final void add(long sequence, Object element) {
+            int slot;
+            if(size < elements.length) {
+                slot = wrap(head + size++);
+            } else { //overwrite the oldest entry
+                slot = head;
+                head = wrap(head + 1);
+            }
+            
+            sequences[slot] = sequence;
+            elements[slot] = element;
+        }
+        
+        /**
+         * Copies the newest entries, oldest first, with at most two copies
+         * per array.
+         */
+        private final void copyNewest(int entries, long[] sequenceDest, Object[] elementDest) {
+            int from = wrap(head + size - entries);
+            int firstPart = Math.min(entries, elements.length - from);
+            
+            System.arraycopy(sequences, from, sequenceDest, 0, firstPart);
+            System.arraycopy(sequences, 0, sequenceDest, firstPart, entries - firstPart);
+            System.arraycopy(elements, from, elementDest, 0, firstPart);
+            System.arraycopy(elements, 0, elementDest, firstPart, entries - firstPart);
+        }
+        
+        private final void clear() {
+            for(int i = 0 ; i < size ; i++) {
+                elements[wrap(head + i)] = null;
+            }
+            
+            head = 0;
+            size = 0;
+        }
+        
+        private final int wrap(int position) {
+            return position >= elements.length ? position - elements.length : position;
+        }
+    }
+}
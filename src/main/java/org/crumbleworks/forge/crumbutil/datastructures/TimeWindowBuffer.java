@@ -0,0 +1,291 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.crumbleworks.forge.crumbutil.validation.Parameters.greaterOrEqual;
+import static org.crumbleworks.forge.crumbutil.validation.Parameters.notNull;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates a circular buffer, which drops its oldest elements once they exceed a maximum age, as well as once it is at capacity.
+ * <p>Order of the buffer is oldest to youngest, <code>0</code> to <code>{@linkplain #size()} -1</code>, like in a {@link TailInRingBuffer}.
+ * <p>Every element is stamped with the time it was added, read from a {@link Clock}, which is kept in a primitive array next to the elements. Expired elements are dropped lazily, whenever the buffer is added to or read from, so the buffer never has to be scanned in the background. As the timestamps are ordered, reads like "all elements since t" find their start with a binary search.
+ * <p>This class offers:
+ * <ul>
+ *     <li>add(E)</li>
+ *     <li>get(int)</li>
+ *     <li>timestamp(int)</li>
+ *     <li>since(Instant)</li>
+ *     <li>size()</li>
+ * </ul>
+ * <p>This class is not synchronized.
+ * 
+ * @see TailInRingBuffer
+ * 
+ * @author Michael Stocker
+ * @since 0.8.0
+ * 
+ * @param <E> the type of elements in this buffer
+ */
+public class TimeWindowBuffer<E> {
+    private static final Duration ONE_MILLI = Duration.ofMillis(1);
+    
+    private final int capacity;
+    private final long maxAgeMillis;
+    private final Clock clock;
+    
+    private final Object[] elements;
+    private final long[] timestamps;
+    
+    private int size = 0;
+    
+    /*
+     * The slot of the oldest element, always inside [0, capacity)
+     */
+    private int offset = 0;
+    
+    /**
+     * Constructs an empty buffer, which reads the time from the system clock
+     * 
+     * @param capacity the maximum number of elements
+     * @param maxAge the age at which elements are dropped, with millisecond precision
+     * 
+     * @throws IllegalArgumentException if the specified capacity is negative or zero, or the maximum age is less than a millisecond
+     */
+    public TimeWindowBuffer(int capacity, Duration maxAge) {
+        this(capacity, maxAge, Clock.systemUTC());
+    }
+    
+    /**
+     * Constructs an empty buffer
+     * 
+     * @param capacity the maximum number of elements
+     * @param maxAge the age at which elements are dropped, with millisecond precision
+     * @param clock the clock to stamp elements and determine their age with
+     * 
+     * @throws IllegalArgumentException if the specified capacity is negative or zero, or the maximum age is less than a millisecond
+     */
+    public TimeWindowBuffer(int capacity, Duration maxAge, Clock clock) {
+        if(capacity <= 0) {
+            throw new IllegalArgumentException("Illegal Capacity: " + capacity);
+        }
+        if(notNull(maxAge).compareTo(ONE_MILLI) < 0) { //would truncate to no age at all
+            throw new IllegalArgumentException("Illegal Maximum Age: " + maxAge);
+        }
+        
+        this.capacity = capacity;
+        this.maxAgeMillis = millisOf(maxAge);
+        this.clock = notNull(clock);
+        
+        this.elements = new Object[capacity];
+        this.timestamps = new long[capacity];
+    }
+    
+    /**
+     * Returns the number of elements in this buffer, after dropping expired elements
+     * 
+     * @return the number of elements in this buffer
+     */
+    public int size() {
+        evictExpired();
+        return size;
+    }
+    
+    /**
+     * Returns the capacity of this buffer
+     * 
+     * @return the maximum number of elements
+     */
+    public int capacity() {
+        return capacity;
+    }
+    
+    /**
+     * Returns the age at which elements are dropped
+     * 
+     * @return the maximum age
+     */
+    public Duration maxAge() {
+        return Duration.ofMillis(maxAgeMillis);
+    }
+    
+    /**
+     * Adds an element to the end of this buffer, stamped with the current time of the clock. Expired elements are dropped, as well as the oldest element if the buffer is at capacity.
+     * <p>Should the clock go backwards, the element is stamped with the timestamp of the youngest element instead, so the timestamps stay ordered.
+     * 
+     * @param element the element to add
+     */
+    public void add(E element) {
+        long now = clock.millis();
+        evictExpired(now);
+        
+        if(size > 0) {
+            now = Math.max(now, timestamps[slot(size - 1)]);
+        }
+        
+        int slot;
+        if(size < capacity) {
+            slot = slot(size++);
+        } else {
+            slot = offset;
+            if(++offset == capacity) {
+                offset = 0;
+            }
+        }
+        
+        elements[slot] = element;
+        timestamps[slot] = now;
+    }
+    
+    /**
+     * Returns the element at the specified position in this buffer, after dropping expired elements.
+     * 
+     * @param index the index of the element to return
+     * 
+     * @return the element at the specified position
+     * @throws IllegalArgumentException if the index is outside of <code>0</code> to <code>{@linkplain #size()} -1</code>
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        evictExpired();
+        return (E)elements[slot(indexInsideBounds(greaterOrEqual(index, 0)))];
+    }
+    
+    /**
+     * Returns the time the element at the specified position was added, after dropping expired elements.
+     * 
+     * @param index the index of the element
+     * 
+     * @return the time the element was added
+     * @throws IllegalArgumentException if the index is outside of <code>0</code> to <code>{@linkplain #size()} -1</code>
+     */
+    public Instant timestamp(int index) {
+        evictExpired();
+        return Instant.ofEpochMilli(timestamps[slot(indexInsideBounds(greaterOrEqual(index, 0)))]);
+    }
+    
+    /**
+     * Returns all elements added at or after the given time, oldest to youngest.
+     * 
+     * @param time the earliest time of the elements to return
+     * 
+     * @return a new list containing the elements
+     */
+    public List<E> since(Instant time) {
+        evictExpired();
+        return range(firstIndexAtOrAfter(notNull(time).toEpochMilli()));
+    }
+    
+    /**
+     * Returns all elements added within the given duration before now, oldest to youngest.
+     * 
+     * @param duration how far to look back
+     * 
+     * @return a new list containing the elements
+     */
+    public List<E> last(Duration duration) {
+        return since(clock.instant().minus(notNull(duration)));
+    }
+    
+    /**
+     * Returns all elements of this buffer, oldest to youngest, after dropping expired elements.
+     * 
+     * @return a new list containing the elements
+     */
+    public List<E> toList() {
+        evictExpired();
+        return range(0);
+    }
+    
+    /**
+     * Empties this buffer.
+     */
+    public void clear() {
+        for(int i = 0 ; i < size ; i++) {
+            elements[slot(i)] = null;
+        }
+        size = 0;
+        offset = 0;
+    }
+    
+    /*
+     * drops all elements which reached the maximum age, oldest first
+     */
+    private final void evictExpired() {
+        evictExpired(clock.millis());
+    }
+    
+    private final void evictExpired(long now) {
+        long expiry = now - maxAgeMillis;
+        if(expiry > now) { //overflowed, nothing can be that old
+            return;
+        }
+        
+        while(size > 0 && timestamps[offset] <= expiry) {
+            elements[offset] = null;
+            if(++offset == capacity) {
+                offset = 0;
+            }
+            size--;
+        }
+    }
+    
+    /*
+     * the age in millis, saturated for ages too long to count in millis
+     */
+    private static long millisOf(Duration age) {
+        try {
+            return age.toMillis();
+        } catch(ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+    
+    /*
+     * binary search for the lowest index whose timestamp is at or after the given time, size if there is none
+     */
+    private final int firstIndexAtOrAfter(long time) {
+        int lo = 0;
+        int hi = size;
+        while(lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if(timestamps[slot(mid)] < time) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private final List<E> range(int from) {
+        List<E> range = new ArrayList<>(size - from);
+        for(int i = from ; i < size ; i++) {
+            range.add((E)elements[slot(i)]);
+        }
+        return range;
+    }
+    
+    /*
+     * conversion method to map an index to the index of the internal arrays
+     */
+    private final int slot(int i) {
+        int res;
+        return (res = i + offset) >= capacity ? res - capacity : res;
+    }
+    
+    /*
+     * check index inside bounds
+     */
+    private final int indexInsideBounds(int i) {
+        if(i < size) {
+            return i;
+        }
+        
+        throw new IllegalArgumentException("Index " + i + " is outside bounds.");
+    }
+}
@@ -0,0 +1,42 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.crumbleworks.forge.crumbutil.validation.Parameters.notNull;
+
+import java.time.Duration;
+
+/**
+ * Converts the {@link Duration} timeouts taken by the buffers of this package to nanoseconds, so the same timeout means the same wait in all of them.
+ * 
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+final class Timeouts {
+
+    /**
+     * The timeout of a wait without a timeout, which is also what timeouts too long to count in nanoseconds saturate to
+     */
+    static final long FOREVER = Long.MAX_VALUE;
+    
+    private Timeouts() {}
+    
+    /**
+     * Converts a timeout to nanoseconds, negative timeouts to <code>0</code> and timeouts longer than about 292 years to {@link #FOREVER}.
+     * 
+     * @param timeout the timeout to convert
+     * 
+     * @return the timeout in nanoseconds
+     * 
+     * @throws IllegalArgumentException if the timeout is <code>null</code>
+     */
+    static long nanosOf(Duration timeout) {
+        if(notNull(timeout).isNegative()) {
+            return 0;
+        }
+        
+        try {
+            return timeout.toNanos();
+        } catch(ArithmeticException e) { //waits for centuries either way
+            return FOREVER;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import java.util.Objects;
+
+/**
+ * A value together with the version it was published as, e.g. by a {@link HandoffBuffer}.
+ * <p>Versions start at <code>1</code> for the first value and increase with every value published after it, so a reader can tell whether it has seen a value already.
+ * 
+ * @author Michael Stocker
+ * @since 0.8.0
+ * 
+ * @param <T> the type of the value
+ */
+public final class Versioned<T> {
+    private final T value;
+    private final long version;
+    
+    /**
+     * Creates a versioned value
+     * 
+     * @param value the value
+     * @param version the version of the value
+     */
+    public Versioned(T value, long version) {
+        this.value = value;
+        this.version = version;
+    }
+    
+    /**
+     * Returns the value
+     * 
+     * @return the value
+     */
+    public T value() {
+        return value;
+    }
+    
+    /**
+     * Returns the version the value was published as
+     * 
+     * @return the version of the value
+     */
+    public long version() {
+        return version;
+    }
+    
+    @Override
+    public boolean equals(Object obj) {
+        if(this == obj) {
+            return true;
+        }
+        if(!(obj instanceof Versioned)) {
+            return false;
+        }
+        
+        Versioned<?> other = (Versioned<?>)obj;
+        return version == other.version && Objects.equals(value, other.value);
+    }
+    
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(version) + Objects.hashCode(value);
+    }
+    
+    @Override
+    public String toString() {
+        return "Versioned[" + version + ": " + value + "]";
+    }
+}
@@ -1,28 +1,52 @@
 package org.crumbleworks.forge.crumbutil.datastructures;
 
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
 /**
  * A <code>WaitBuffer</code> allows waiting for an object to be received. Using the {@link #set(Object)} method the object will release the lock on the {@link #get()} method.
  * <p>This class can be reused as after finishing a cycle.
+ * <p>Waits on a {@link Condition} instead of a monitor, so waiting virtual threads do not pin their carrier thread.
  * 
  * @author Michael Stocker
  * @since 0.6.4
+ * @deprecated objects set while no thread is waiting are lost and waiting cannot time out; use {@link HandoffBuffer} instead
  *
  * @param <T> the type of the object to be waited for
  */
+@Deprecated
 public class WaitBuffer<T> {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition set = lock.newCondition();
+    
     private T object;
-    private boolean isWaiting = false;
+    private long generation; //counts sets, guards against spurious wakeups
+    private volatile boolean isWaiting = false;
     
-    public synchronized void set(T object) {
-        notifyAll();
-        isWaiting = false;
-        this.object = object;
+    public void set(T object) {
+        lock.lock();
+        try {
+            set.signalAll();
+            isWaiting = false;
+            this.object = object;
+            generation++;
+        } finally {
+            lock.unlock();
+        }
     }
     
-    public synchronized T get() throws InterruptedException {
-        isWaiting = true;
-        wait();
-        return object;
+    public T get() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            isWaiting = true;
+            long awaited = generation;
+            while(generation == awaited) {
+                set.await();
+            }
+            return object;
+        } finally {
+            lock.unlock();
+        }
     }
     
     public boolean isWaiting() {
@@ -79,6 +79,28 @@ public final class MathUtil {
         return (int)lcm((long)a, (long)b);
     }
     
+    /**
+     * @param x a number, at least <code>1</code>
+     * 
+     * @return the smallest power of two that is equal to or greater than <code>x</code>
+     * @throws IllegalArgumentException if <code>x</code> is smaller than <code>1</code> or there is no such power of two
+     */
+    public static final long nextPowerOfTwo(final long x) {
+        if(x < 1 || x > (1L << 62)) {
+            throw new IllegalArgumentException("There is no power of two for: " + x);
+        }
+        
+        return 1L << (64 - Long.numberOfLeadingZeros(x - 1));
+    }
+    
+    public static final int nextPowerOfTwo(final int x) {
+        if(x > (1 << 30)) {
+            throw new IllegalArgumentException("There is no power of two for: " + x);
+        }
+        
+        return (int)nextPowerOfTwo((long)x);
+    }
+    
     /* ************************************************************************
      * GEOMETRY
      */
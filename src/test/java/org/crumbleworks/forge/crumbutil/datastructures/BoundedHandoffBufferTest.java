@@ -0,0 +1,222 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+public class BoundedHandoffBufferTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+    
+    @Test
+    public void illegalParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new BoundedHandoffBuffer<String>(0));
+        
+        BoundedHandoffBuffer<String> buffer = new BoundedHandoffBuffer<>(4);
+        assertThrows(IllegalArgumentException.class, () -> buffer.set(null));
+        assertThrows(IllegalArgumentException.class, () -> buffer.takeBatch(new ArrayList<>(), 0, TIMEOUT));
+    }
+    
+    /* ************************************************************************
+     * SET & GET
+     */
+    @Test
+    public void burstIsNotLost() throws InterruptedException {
+        BoundedHandoffBuffer<String> buffer = new BoundedHandoffBuffer<>(4);
+        buffer.set("a");
+        buffer.set("b");
+        buffer.set("c");
+        
+        assertEquals(3, buffer.getSize());
+        assertEquals("a", buffer.get());
+        assertEquals("b", buffer.get(TIMEOUT));
+        assertEquals("c", buffer.tryGet());
+        assertNull(buffer.tryGet());
+        assertNull(buffer.get(Duration.ofMillis(10)));
+    }
+    
+    @Test
+    public void setTimesOutWhenFull() throws InterruptedException {
+        BoundedHandoffBuffer<String> buffer = new BoundedHandoffBuffer<>(2);
+        assertTrue(buffer.set("a", TIMEOUT));
+        assertTrue(buffer.set("b", TIMEOUT));
+        assertFalse(buffer.set("c", Duration.ofMillis(10)));
+        
+        assertEquals("a", buffer.get());
+        assertTrue(buffer.set("c", Duration.ZERO));
+    }
+    
+    @Test
+    public void setWaitsForRoom() throws InterruptedException {
+        BoundedHandoffBuffer<Integer> buffer = new BoundedHandoffBuffer<>(1);
+        buffer.set(1);
+        
+        Thread producer = new Thread(() -> {
+            try {
+                buffer.set(2);
+            } catch(InterruptedException e) {
+                //fails the assertion below
+            }
+        });
+        producer.start();
+        
+        while(buffer.waitingProducers() == 0) {
+            Thread.yield();
+        }
+        assertEquals(1, buffer.get().intValue());
+        producer.join();
+        
+        assertEquals(0, buffer.waitingProducers());
+        assertEquals(2, buffer.get().intValue());
+    }
+    
+    @Test
+    public void countsWaitingConsumers() throws InterruptedException {
+        BoundedHandoffBuffer<String> buffer = new BoundedHandoffBuffer<>(4);
+        assertFalse(buffer.isWaiting());
+        
+        List<String> received = new ArrayList<>();
+        Thread[] consumers = new Thread[2];
+        for(int i = 0 ; i < consumers.length ; i++) {
+            consumers[i] = new Thread(() -> {
+                try {
+                    String object = buffer.get(TIMEOUT);
+                    synchronized(received) {
+                        received.add(object);
+                    }
+                } catch(InterruptedException e) {
+                    //fails the assertion below
+                }
+            });
+            consumers[i].start();
+        }
+        
+        while(buffer.waitingConsumers() < 2) {
+            Thread.yield();
+        }
+        assertTrue(buffer.isWaiting());
+        
+        buffer.set("a");
+        buffer.set("b");
+        for(Thread consumer : consumers) {
+            consumer.join();
+        }
+        
+        assertFalse(buffer.isWaiting());
+        assertEquals(2, received.size());
+        assertTrue(received.containsAll(Arrays.asList("a", "b")));
+    }
+    
+    /* ************************************************************************
+     * BATCHES
+     */
+    @Test
+    public void takeBatch() throws InterruptedException {
+        BoundedHandoffBuffer<Integer> buffer = new BoundedHandoffBuffer<>(4);
+        List<Integer> batch = new ArrayList<>();
+        assertEquals(0, buffer.takeBatch(batch, 4, Duration.ofMillis(10)));
+        
+        //wraps around the end of the buffer
+        buffer.set(0);
+        buffer.get();
+        for(int i = 1 ; i <= 4 ; i++) {
+            buffer.set(i);
+        }
+        
+        assertEquals(3, buffer.takeBatch(batch, 3, TIMEOUT));
+        assertEquals(Arrays.asList(1, 2, 3), batch);
+        
+        batch.clear();
+        assertEquals(1, buffer.takeBatch(batch, 3, TIMEOUT));
+        assertEquals(Arrays.asList(4), batch);
+        assertEquals(0, buffer.getSize());
+    }
+    
+    @Test
+    public void failingListTakesWhatWasAdded() throws InterruptedException {
+        BoundedHandoffBuffer<Integer> buffer = new BoundedHandoffBuffer<>(4);
+        for(int i = 1 ; i <= 4 ; i++) {
+            buffer.set(i);
+        }
+        
+        List<Integer> batch = new ArrayList<Integer>() {
+            private static final long serialVersionUID = 1L;
+            
+            @Override
+            public boolean add(Integer object) {
+                if(size() == 2) {
+                    throw new IllegalStateException("full");
+                }
+                return super.add(object);
+            }
+        };
+        assertThrows(IllegalStateException.class, () -> buffer.takeBatch(batch, 4, TIMEOUT));
+        assertEquals(Arrays.asList(1, 2), batch);
+        
+        assertEquals(2, buffer.getSize());
+        assertTrue(buffer.set(5, Duration.ZERO));
+        assertEquals(3, buffer.get().intValue());
+        assertEquals(4, buffer.get().intValue());
+        assertEquals(5, buffer.get().intValue());
+        assertNull(buffer.tryGet());
+    }
+    
+    @Test
+    public void takeBatchFreesWaitingProducers() throws InterruptedException {
+        BoundedHandoffBuffer<Integer> buffer = new BoundedHandoffBuffer<>(8);
+        int objects = 10_000;
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        
+        Thread[] producers = new Thread[2];
+        for(int p = 0 ; p < producers.length ; p++) {
+            int offset = p * objects;
+            producers[p] = new Thread(() -> {
+                try {
+                    for(int i = 0 ; i < objects ; i++) {
+                        buffer.set(offset + i);
+                    }
+                } catch(InterruptedException e) {
+                    failure.set(e);
+                }
+            });
+            producers[p].start();
+        }
+        
+        List<Integer> batch = new ArrayList<>();
+        int[] lastOfProducer = {-1, objects - 1};
+        int taken = 0;
+        while(taken < producers.length * objects) {
+            batch.clear();
+            int count = buffer.takeBatch(batch, 8, TIMEOUT);
+            assertTrue(count > 0);
+            taken += count;
+            
+            for(int object : batch) { //every producer's objects arrive in order
+                int producer = object / objects;
+                assertTrue(object > lastOfProducer[producer]);
+                lastOfProducer[producer] = object;
+            }
+        }
+        
+        for(Thread producer : producers) {
+            producer.join();
+        }
+        
+        assertNull(failure.get());
+        assertEquals(0, buffer.getSize());
+    }
+}
@@ -0,0 +1,93 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+public class ConflatingMailboxTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+    
+    @Test
+    public void postNull() {
+        assertThrows(IllegalArgumentException.class, () -> new ConflatingMailbox<String>().post(null));
+    }
+    
+    @Test
+    public void readsLatest() {
+        ConflatingMailbox<String> mailbox = new ConflatingMailbox<>();
+        assertNull(mailbox.latest());
+        assertNull(mailbox.peek());
+        assertEquals(0, mailbox.version());
+        
+        mailbox.post("a");
+        mailbox.post("b");
+        
+        assertEquals("b", mailbox.latest());
+        assertEquals("b", mailbox.latest()); //reading does not take the value
+        assertEquals(new Versioned<>("b", 2), mailbox.peek());
+    }
+    
+    @Test
+    public void intermediateValuesAreCoalesced() throws InterruptedException {
+        ConflatingMailbox<Integer> mailbox = new ConflatingMailbox<>();
+        for(int i = 1 ; i <= 100 ; i++) {
+            mailbox.post(i);
+        }
+        
+        Versioned<Integer> read = mailbox.awaitNewer(0, TIMEOUT);
+        assertEquals(100, read.value().intValue());
+        assertNull(mailbox.awaitNewer(read.version(), Duration.ofMillis(10)));
+        assertFalse(mailbox.isWaiting()); //a reader that timed out is not waiting anymore
+    }
+    
+    @Test
+    public void slowReaderSeesLatestAndIncreasingVersions() throws InterruptedException {
+        ConflatingMailbox<Long> mailbox = new ConflatingMailbox<>();
+        long values = 100_000;
+        AtomicLong reads = new AtomicLong();
+        AtomicLong violations = new AtomicLong();
+        AtomicLong last = new AtomicLong();
+        
+        Thread reader = new Thread(() -> {
+            try {
+                long seen = 0;
+                Versioned<Long> read;
+                while((read = mailbox.awaitNewer(seen, TIMEOUT)) != null) {
+                    if(read.version() <= seen || read.value() != read.version()) {
+                        violations.incrementAndGet();
+                    }
+                    seen = read.version();
+                    last.set(read.value());
+                    reads.incrementAndGet();
+                    if(seen == values) {
+                        break;
+                    }
+                }
+            } catch(InterruptedException e) {
+                //fails the assertions below
+            }
+        });
+        reader.start();
+        
+        for(long i = 1 ; i <= values ; i++) {
+            mailbox.post(i);
+        }
+        reader.join();
+        
+        assertEquals(0, violations.get());
+        assertEquals(values, last.get());
+        assertTrue(reads.get() <= values);
+    }
+}
@@ -0,0 +1,149 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.crumbleworks.forge.crumbutil.copyable.Copyable;
+import org.crumbleworks.forge.crumbutil.datastructures.DoubleBuffer.Buffering;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+public class DoubleBufferTest {
+
+    @Test
+    public void illegalBuffers() {
+        Frame frame = new Frame();
+        assertThrows(IllegalArgumentException.class, () -> new DoubleBuffer<>(frame, frame));
+        assertThrows(IllegalArgumentException.class, () -> new DoubleBuffer<>(frame, new Frame(), frame));
+        assertThrows(IllegalArgumentException.class, () -> new DoubleBuffer<>(frame, null));
+    }
+    
+    @Test
+    public void seededFromCopyable() {
+        Frame seed = new Frame();
+        seed.fill(7);
+        
+        DoubleBuffer<Frame> buffer = DoubleBuffer.seededFrom(seed, Buffering.TRIPLE);
+        assertEquals(Buffering.TRIPLE, buffer.getBuffering());
+        assertEquals(7, buffer.read(frame -> frame.values[0]).longValue()); //the seed is readable until the first frame is published
+        assertEquals(7, buffer.back().values[0]);
+        assertNotSame(seed, buffer.back());
+    }
+    
+    /* ************************************************************************
+     * SWAPPING
+     */
+    @Test
+    public void publishSwapsWithoutCopying() {
+        for(Buffering buffering : Buffering.values()) {
+            DoubleBuffer<Frame> buffer = DoubleBuffer.seededFrom(new Frame(), buffering);
+            
+            Frame back = buffer.back();
+            back.fill(1);
+            assertEquals(1, buffer.publish());
+            
+            assertTrue(buffer.<Boolean>read(frame -> frame == back));
+            assertNotSame(back, buffer.back());
+            
+            buffer.back().fill(2);
+            assertEquals(2, buffer.publish());
+            assertEquals(2, buffer.read(frame -> frame.values[0]).longValue());
+            assertEquals(2, buffer.getPublished());
+        }
+    }
+    
+    @Test
+    public void tripleReadsLatestOfSkippedFrames() {
+        DoubleBuffer<Frame> buffer = DoubleBuffer.seededFrom(new Frame(), Buffering.TRIPLE);
+        for(int i = 1 ; i <= 5 ; i++) {
+            buffer.back().fill(i);
+            buffer.publish();
+        }
+        
+        assertEquals(5, buffer.read(frame -> frame.values[0]).longValue());
+        assertEquals(5, buffer.read(frame -> frame.values[0]).longValue()); //nothing new, same frame again
+    }
+    
+    @Test
+    public void tripleHasOneConsumer() {
+        DoubleBuffer<Frame> buffer = DoubleBuffer.seededFrom(new Frame(), Buffering.TRIPLE);
+        assertThrows(IllegalStateException.class, () -> buffer.read(outer -> buffer.read(inner -> inner)));
+    }
+    
+    @Test
+    public void consumersReadConsistentFrames() throws InterruptedException {
+        for(Buffering buffering : Buffering.values()) {
+            DoubleBuffer<Frame> buffer = DoubleBuffer.seededFrom(new Frame(), buffering);
+            int consumers = buffering == Buffering.TRIPLE ? 1 : 3;
+            AtomicBoolean done = new AtomicBoolean();
+            AtomicLong torn = new AtomicLong();
+            AtomicLong backwards = new AtomicLong();
+            
+            Thread[] threads = new Thread[consumers];
+            for(int i = 0 ; i < consumers ; i++) {
+                threads[i] = new Thread(() -> {
+                    long last = 0;
+                    while(!done.get()) {
+                        long[] read = buffer.read(frame -> new long[]{frame.values[0], frame.values[frame.values.length - 1], frame.consistent() ? 0 : 1});
+                        if(read[2] != 0 || read[0] != read[1]) {
+                            torn.incrementAndGet();
+                        }
+                        if(read[0] < last) {
+                            backwards.incrementAndGet();
+                        }
+                        last = read[0];
+                    }
+                });
+                threads[i].start();
+            }
+            
+            for(int i = 1 ; i <= 20_000 ; i++) {
+                buffer.back().fill(i);
+                buffer.publish();
+            }
+            done.set(true);
+            for(Thread thread : threads) {
+                thread.join();
+            }
+            
+            assertEquals(0, torn.get(), buffering.name());
+            assertEquals(0, backwards.get(), buffering.name());
+        }
+    }
+    
+    /* ************************************************************************
+     * HELPERS
+     */
+    private static final class Frame implements Copyable<Frame> {
+        private final long[] values = new long[256];
+        
+        private void fill(long value) {
+            Arrays.fill(values, value);
+        }
+        
+        private boolean consistent() {
+            for(long value : values) {
+                if(value != values[0]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        @Override
+        public Frame createCopy() {
+            Frame copy = new Frame();
+            System.arraycopy(values, 0, copy.values, 0, values.length);
+            return copy;
+        }
+    }
+}
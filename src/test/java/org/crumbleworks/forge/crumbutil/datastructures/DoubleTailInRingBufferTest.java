@@ -0,0 +1,96 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+public class DoubleTailInRingBufferTest {
+
+    @Test
+    public void constructWithCapacityZero() {
+        assertThrows(IllegalArgumentException.class, () -> new DoubleTailInRingBuffer(0));
+    }
+    
+    @Test
+    public void constructWithCapacityNegative() {
+        assertThrows(IllegalArgumentException.class, () -> new DoubleTailInRingBuffer(-7));
+    }
+    
+    @Test
+    public void constructFromArray() {
+        double[] values = {3.5, 1.25, -4.0, 1.0, 5.75};
+        DoubleTailInRingBuffer ring = new DoubleTailInRingBuffer(values);
+        
+        assertEquals(values.length, ring.size());
+        assertEquals(values.length, ring.capacity());
+        assertArrayEquals(values, ring.toArray());
+    }
+    
+    /* ************************************************************************
+     * ADD
+     */
+    @Test
+    public void addBeyondCapacity() {
+        DoubleTailInRingBuffer ring = new DoubleTailInRingBuffer(3);
+        
+        for(int i = 0 ; i < 11 ; i++) { //wraps multiple times
+            ring.add(i);
+        }
+        
+        assertEquals(3, ring.size());
+        assertArrayEquals(new double[]{8.0, 9.0, 10.0}, ring.toArray());
+    }
+    
+    /* ************************************************************************
+     * GET
+     */
+    @Test
+    public void getAfterWrapping() {
+        DoubleTailInRingBuffer ring = new DoubleTailInRingBuffer(new double[]{0.0, 1.0, 2.0, 3.0, 4.0});
+        ring.add(5.0);
+        ring.add(6.0);
+        
+        assertEquals(2.0, ring.get(0));
+        assertEquals(4.0, ring.get(2));
+        assertEquals(6.0, ring.get(4));
+    }
+    
+    @Test
+    public void getOutsideRange() {
+        DoubleTailInRingBuffer ring = new DoubleTailInRingBuffer(5);
+        ring.add(1.0);
+        
+        assertThrows(IllegalArgumentException.class, () -> ring.get(1));
+        assertThrows(IllegalArgumentException.class, () -> ring.get(-1));
+    }
+    
+    /* ************************************************************************
+     * TOARRAY
+     */
+    @Test
+    public void toArrayIntoLargeEnoughArray() {
+        DoubleTailInRingBuffer ring = new DoubleTailInRingBuffer(4);
+        for(int i = 0 ; i < 6 ; i++) {
+            ring.add(i);
+        }
+        
+        double[] dest = new double[6];
+        
+        assertSame(dest, ring.toArray(dest));
+        assertArrayEquals(new double[]{2.0, 3.0, 4.0, 5.0, 0.0, 0.0}, dest);
+    }
+    
+    @Test
+    public void toArrayIntoTooSmallArray() {
+        DoubleTailInRingBuffer ring = new DoubleTailInRingBuffer(new double[]{7.0, 8.0, 9.0});
+        
+        assertArrayEquals(new double[]{7.0, 8.0, 9.0}, ring.toArray(new double[1]));
+    }
+}
@@ -0,0 +1,231 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+public class HandoffBufferTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+    
+    @Test
+    public void setNull() {
+        assertThrows(IllegalArgumentException.class, () -> new HandoffBuffer<String>().set(null));
+    }
+    
+    /* ************************************************************************
+     * TAKING
+     */
+    @Test
+    public void objectSetBeforeGetIsNotLost() throws InterruptedException {
+        HandoffBuffer<String> buffer = new HandoffBuffer<>();
+        buffer.set("early");
+        
+        assertEquals("early", buffer.get(TIMEOUT));
+    }
+    
+    @Test
+    public void objectIsTakenOnce() throws InterruptedException {
+        HandoffBuffer<String> buffer = new HandoffBuffer<>();
+        assertNull(buffer.tryGet());
+        
+        buffer.set("once");
+        assertEquals("once", buffer.tryGet());
+        assertNull(buffer.tryGet());
+        assertNull(buffer.get(Duration.ofMillis(10)));
+        assertFalse(buffer.isWaiting());
+    }
+    
+    @Test
+    public void newerObjectReplacesUntaken() {
+        HandoffBuffer<String> buffer = new HandoffBuffer<>();
+        assertEquals(1, buffer.set("first"));
+        assertEquals(2, buffer.set("second"));
+        
+        assertEquals("second", buffer.tryGet());
+        assertNull(buffer.tryGet());
+    }
+    
+    @Test
+    public void getTimesOut() throws InterruptedException {
+        HandoffBuffer<String> buffer = new HandoffBuffer<>();
+        
+        long start = System.nanoTime();
+        assertNull(buffer.get(Duration.ofMillis(50)));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+    
+    @Test
+    public void waitersLeaveWhenTheyStopWaiting() throws InterruptedException {
+        HandoffBuffer<String> buffer = new HandoffBuffer<>();
+        
+        for(int i = 0 ; i < 100 ; i++) {
+            assertNull(buffer.get(Duration.ofNanos(1000)));
+            assertNull(buffer.getNewerThan(0, Duration.ofNanos(1000)));
+        }
+        assertFalse(buffer.isWaiting());
+        
+        CompletableFuture<Versioned<String>> future = buffer.newerThan(0);
+        assertTrue(buffer.isWaiting());
+        future.cancel(false);
+        assertFalse(buffer.isWaiting());
+    }
+    
+    @Test
+    public void getWaitsForSet() throws InterruptedException {
+        HandoffBuffer<String> buffer = new HandoffBuffer<>();
+        AtomicReference<String> received = new AtomicReference<>();
+        
+        Thread getter = new Thread(() -> {
+            try {
+                received.set(buffer.get(TIMEOUT));
+            } catch(InterruptedException e) {
+                //fails the assertion below
+            }
+        });
+        getter.start();
+        
+        while(!buffer.isWaiting()) {
+            Thread.yield();
+        }
+        buffer.set("late");
+        getter.join();
+        
+        assertEquals("late", received.get());
+    }
+    
+    @Test
+    public void getIsInterruptible() throws InterruptedException {
+        HandoffBuffer<String> buffer = new HandoffBuffer<>();
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        
+        Thread getter = new Thread(() -> {
+            try {
+                buffer.get();
+            } catch(InterruptedException e) {
+                thrown.set(e);
+            }
+        });
+        getter.start();
+        
+        while(!buffer.isWaiting()) {
+            Thread.yield();
+        }
+        getter.interrupt();
+        getter.join();
+        
+        assertTrue(thrown.get() instanceof InterruptedException);
+    }
+    
+    @Test
+    public void everyObjectIsTakenByOneGetter() throws InterruptedException {
+        HandoffBuffer<Integer> buffer = new HandoffBuffer<>();
+        AtomicInteger taken = new AtomicInteger();
+        AtomicInteger sum = new AtomicInteger();
+        int objects = 10_000;
+        
+        Thread[] getters = new Thread[4];
+        for(int i = 0 ; i < getters.length ; i++) {
+            getters[i] = new Thread(() -> {
+                try {
+                    Integer object;
+                    while((object = buffer.get(Duration.ofMillis(200))) != null) {
+                        taken.incrementAndGet();
+                        sum.addAndGet(object);
+                    }
+                } catch(InterruptedException e) {
+                    //ends the getter
+                }
+            });
+            getters[i].start();
+        }
+        
+        //only sets once the previous object was taken, so none is replaced
+        for(int i = 1 ; i <= objects ; i++) {
+            buffer.set(i);
+            while(taken.get() < i) {
+                Thread.yield();
+            }
+        }
+        
+        for(Thread getter : getters) {
+            getter.join();
+        }
+        
+        assertEquals(objects, taken.get());
+        assertEquals(objects * (objects + 1) / 2, sum.get());
+    }
+    
+    /* ************************************************************************
+     * VERSIONS
+     */
+    @Test
+    public void versions() {
+        HandoffBuffer<String> buffer = new HandoffBuffer<>();
+        assertEquals(0, buffer.version());
+        assertNull(buffer.peek());
+        
+        buffer.set("a");
+        buffer.tryGet();
+        
+        assertEquals(1, buffer.version());
+        assertEquals(new Versioned<>("a", 1), buffer.peek()); //taking does not hide it from peeking
+    }
+    
+    @Test
+    public void getNewerThan() throws InterruptedException {
+        HandoffBuffer<String> buffer = new HandoffBuffer<>();
+        buffer.set("a");
+        
+        assertEquals(new Versioned<>("a", 1), buffer.getNewerThan(0, TIMEOUT));
+        assertNull(buffer.getNewerThan(1, Duration.ofMillis(10)));
+        
+        Thread setter = new Thread(() -> {
+            while(!buffer.isWaiting()) {
+                Thread.yield();
+            }
+            buffer.set("b");
+        });
+        setter.start();
+        
+        assertEquals(new Versioned<>("b", 2), buffer.getNewerThan(1, TIMEOUT));
+        setter.join();
+        
+        assertEquals("b", buffer.tryGet()); //reading newer versions does not take them
+    }
+    
+    @Test
+    public void newerThanFuture() throws InterruptedException, ExecutionException, TimeoutException {
+        HandoffBuffer<String> buffer = new HandoffBuffer<>();
+        
+        CompletableFuture<Versioned<String>> next = buffer.newerThan(buffer.version());
+        CompletableFuture<Versioned<String>> later = buffer.newerThan(1);
+        assertFalse(next.isDone());
+        
+        buffer.set("a");
+        assertEquals(new Versioned<>("a", 1), next.get(5, TimeUnit.SECONDS));
+        assertFalse(later.isDone());
+        
+        buffer.set("b");
+        assertEquals(new Versioned<>("b", 2), later.get(5, TimeUnit.SECONDS));
+        
+        assertTrue(buffer.newerThan(0).isDone());
+        assertFalse(buffer.isWaiting());
+    }
+}
@@ -7,7 +7,11 @@ import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
 
 import org.crumbleworks.forge.crumbutil.datastructures.HeadInRingBuffer;
 import org.junit.jupiter.api.Test;
@@ -34,6 +38,13 @@ public class HeadInRingBufferTest {
         }
     }
 
+    @Test
+    public void constructWithPowerOfTwoCapacity() {
+        assertEquals(8, new HeadInRingBuffer<Integer>(5, true).capacity());
+        assertEquals(8, new HeadInRingBuffer<Integer>(8, true).capacity());
+        assertEquals(5, new HeadInRingBuffer<Integer>(5, false).capacity());
+    }
+
     @Test
     public void constructFromOtherCollection() {
         int load = 15;
@@ -73,6 +84,20 @@ public class HeadInRingBufferTest {
         }
     }
 
+    @Test
+    public void addWrappingMultipleTimes() {
+        for(boolean powerOfTwo : new boolean[]{false, true}) {
+            HeadInRingBuffer<Integer> ring = new HeadInRingBuffer<Integer>(4, powerOfTwo);
+            
+            for(int i = 0 ; i < 11 ; i++) {
+                ring.add(i);
+            }
+            
+            assertEquals(4, ring.size());
+            assertEquals(Arrays.asList(10, 9, 8, 7), ring);
+        }
+    }
+
     /* ************************************************************************
      * GET
      */
@@ -92,4 +117,179 @@ public class HeadInRingBufferTest {
 
         assertThrows(IllegalArgumentException.class, () -> ring.get(5)); //size 5; greates index > 4
     }
+    
+    /* ************************************************************************
+     * BULK
+     */
+    
+    @Test
+    public void addAllAcrossWrapPoint() {
+        for(boolean powerOfTwo : new boolean[]{false, true}) {
+            HeadInRingBuffer<Integer> ring = new HeadInRingBuffer<Integer>(4, powerOfTwo);
+            for(int i = 0 ; i < 6 ; i++) {
+                ring.add(i);
+            }
+            
+            ring.addAll(new Integer[]{-1, 6, 7, 8, -1}, 1, 3);
+            
+            assertEquals(4, ring.size());
+            assertEquals(Arrays.asList(8, 7, 6, 5), ring);
+        }
+    }
+    
+    @Test
+    public void addAllMoreThanCapacity() {
+        for(boolean powerOfTwo : new boolean[]{false, true}) {
+            HeadInRingBuffer<Integer> ring = new HeadInRingBuffer<Integer>(4, powerOfTwo);
+            ring.add(0);
+            
+            ring.addAll(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8));
+            
+            assertEquals(4, ring.size());
+            assertEquals(Arrays.asList(8, 7, 6, 5), ring);
+        }
+    }
+    
+    @Test
+    public void addAllOutsideRange() {
+        HeadInRingBuffer<Integer> ring = new HeadInRingBuffer<Integer>(4);
+        
+        assertThrows(IndexOutOfBoundsException.class, () -> ring.addAll(new Integer[3], 2, 2));
+        assertThrows(IndexOutOfBoundsException.class, () -> ring.addAll(new Integer[3], -1, 1));
+    }
+    
+    @Test
+    public void copyToAndToArray() {
+        for(boolean powerOfTwo : new boolean[]{false, true}) {
+            HeadInRingBuffer<Integer> ring = new HeadInRingBuffer<Integer>(4, powerOfTwo);
+            for(int i = 0 ; i < 9 ; i++) {
+                ring.add(i);
+            }
+            
+            Object[] dest = new Object[6];
+            assertEquals(4, ring.copyTo(dest));
+            assertEquals(Arrays.asList(8, 7, 6, 5), Arrays.asList(dest).subList(0, 4));
+            
+            assertEquals(Arrays.asList(8, 7, 6, 5), Arrays.asList(ring.toArray()));
+            assertEquals(Arrays.asList(8, 7, 6, 5), Arrays.asList(ring.toArray(new Integer[0])));
+            assertThrows(IllegalArgumentException.class, () -> ring.copyTo(new Object[3]));
+        }
+    }
+    
+    @Test
+    public void drainToAndClear() {
+        HeadInRingBuffer<Integer> ring = new HeadInRingBuffer<Integer>(4);
+        for(int i = 0 ; i < 9 ; i++) {
+            ring.add(i);
+        }
+        
+        assertThrows(IllegalArgumentException.class, () -> ring.drainTo(ring));
+        
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(4, ring.drainTo(drained));
+        assertEquals(Arrays.asList(8, 7, 6, 5), drained);
+        assertTrue(ring.isEmpty());
+        
+        ring.add(9);
+        ring.clear();
+        assertEquals(0, ring.size());
+        assertEquals(4, ring.capacity());
+    }
+    
+    /* ************************************************************************
+     * TRAVERSAL
+     */
+    
+    @Test
+    public void streamInListOrder() {
+        for(boolean powerOfTwo : new boolean[]{false, true}) {
+            HeadInRingBuffer<Integer> ring = new HeadInRingBuffer<Integer>(8, powerOfTwo);
+            for(int i = 0 ; i < 13 ; i++) {
+                ring.add(i);
+            }
+            
+            assertEquals(Arrays.asList(12, 11, 10, 9, 8, 7, 6, 5), ring.stream().collect(Collectors.toList()));
+            assertEquals(Arrays.asList(12, 11, 10, 9, 8, 7, 6, 5), ring.parallelStream().collect(Collectors.toList()));
+            assertEquals(68, ring.parallelStream().mapToInt(Integer::intValue).sum());
+        }
+    }
+    
+    @Test
+    public void spliteratorSplitsAtWrapPoint() {
+        HeadInRingBuffer<Integer> ring = new HeadInRingBuffer<Integer>(8);
+        for(int i = 0 ; i < 13 ; i++) { //oldest element sits in slot 5
+            ring.add(i);
+        }
+        
+        Spliterator<Integer> suffix = ring.spliterator();
+        assertTrue(suffix.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED));
+        
+        Spliterator<Integer> prefix = suffix.trySplit();
+        assertEquals(5, prefix.estimateSize());
+        assertEquals(3, suffix.estimateSize());
+        
+        List<Integer> traversed = new ArrayList<>();
+        prefix.forEachRemaining(traversed::add);
+        suffix.tryAdvance(traversed::add);
+        suffix.forEachRemaining(traversed::add);
+        assertEquals(Arrays.asList(12, 11, 10, 9, 8, 7, 6, 5), traversed);
+    }
+    
+    @Test
+    public void forEachInListOrder() {
+        for(boolean powerOfTwo : new boolean[]{false, true}) {
+            HeadInRingBuffer<Integer> ring = new HeadInRingBuffer<Integer>(8, powerOfTwo);
+            for(int i = 0 ; i < 13 ; i++) {
+                ring.add(i);
+            }
+            
+            List<Integer> traversed = new ArrayList<>();
+            ring.forEach(traversed::add);
+            assertEquals(Arrays.asList(12, 11, 10, 9, 8, 7, 6, 5), traversed);
+        }
+    }
+    
+    /* ************************************************************************
+     * RESIZE
+     */
+    
+    @Test
+    public void resizeGrowing() {
+        for(boolean powerOfTwo : new boolean[]{false, true}) {
+            HeadInRingBuffer<Integer> ring = new HeadInRingBuffer<Integer>(4, powerOfTwo);
+            for(int i = 0 ; i < 7 ; i++) { //wraps
+                ring.add(i);
+            }
+            
+            ring.resize(6);
+            assertEquals(powerOfTwo ? 8 : 6, ring.capacity());
+            assertEquals(Arrays.asList(6, 5, 4, 3), ring);
+            
+            ring.add(7);
+            ring.add(8);
+            assertEquals(Arrays.asList(8, 7, 6, 5, 4, 3), ring);
+        }
+    }
+    
+    @Test
+    public void resizeShrinkingKeepsYoungest() {
+        for(boolean powerOfTwo : new boolean[]{false, true}) {
+            HeadInRingBuffer<Integer> ring = new HeadInRingBuffer<Integer>(8, powerOfTwo);
+            for(int i = 0 ; i < 11 ; i++) {
+                ring.add(i);
+            }
+            
+            ring.resize(2);
+            assertEquals(2, ring.capacity());
+            assertEquals(Arrays.asList(10, 9), ring);
+            
+            ring.add(11);
+            assertEquals(Arrays.asList(11, 10), ring);
+        }
+    }
+    
+    @Test
+    public void resizeToIllegalCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new HeadInRingBuffer<Integer>(4).resize(0));
+    }
 }
@@ -0,0 +1,96 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+public class IntHeadInRingBufferTest {
+
+    @Test
+    public void constructWithCapacityZero() {
+        assertThrows(IllegalArgumentException.class, () -> new IntHeadInRingBuffer(0));
+    }
+    
+    @Test
+    public void constructWithCapacityNegative() {
+        assertThrows(IllegalArgumentException.class, () -> new IntHeadInRingBuffer(-7));
+    }
+    
+    @Test
+    public void constructFromArray() {
+        int[] values = {3, 1, 4, 1, 5};
+        IntHeadInRingBuffer ring = new IntHeadInRingBuffer(values);
+        
+        assertEquals(values.length, ring.size());
+        assertEquals(values.length, ring.capacity());
+        assertArrayEquals(values, ring.toArray());
+    }
+    
+    /* ************************************************************************
+     * ADD
+     */
+    @Test
+    public void addBeyondCapacity() {
+        IntHeadInRingBuffer ring = new IntHeadInRingBuffer(3);
+        
+        for(int i = 0 ; i < 11 ; i++) { //wraps multiple times
+            ring.add(i);
+        }
+        
+        assertEquals(3, ring.size());
+        assertArrayEquals(new int[]{10, 9, 8}, ring.toArray());
+    }
+    
+    /* ************************************************************************
+     * GET
+     */
+    @Test
+    public void getAfterWrapping() {
+        IntHeadInRingBuffer ring = new IntHeadInRingBuffer(new int[]{4, 3, 2, 1, 0});
+        ring.add(5);
+        ring.add(6);
+        
+        assertEquals(6, ring.get(0));
+        assertEquals(4, ring.get(2));
+        assertEquals(2, ring.get(4));
+    }
+    
+    @Test
+    public void getOutsideRange() {
+        IntHeadInRingBuffer ring = new IntHeadInRingBuffer(5);
+        ring.add(1);
+        
+        assertThrows(IllegalArgumentException.class, () -> ring.get(1));
+        assertThrows(IllegalArgumentException.class, () -> ring.get(-1));
+    }
+    
+    /* ************************************************************************
+     * TOARRAY
+     */
+    @Test
+    public void toArrayIntoLargeEnoughArray() {
+        IntHeadInRingBuffer ring = new IntHeadInRingBuffer(4);
+        for(int i = 0 ; i < 6 ; i++) {
+            ring.add(i);
+        }
+        
+        int[] dest = new int[6];
+        
+        assertSame(dest, ring.toArray(dest));
+        assertArrayEquals(new int[]{5, 4, 3, 2, 0, 0}, dest);
+    }
+    
+    @Test
+    public void toArrayIntoTooSmallArray() {
+        IntHeadInRingBuffer ring = new IntHeadInRingBuffer(new int[]{7, 8, 9});
+        
+        assertArrayEquals(new int[]{7, 8, 9}, ring.toArray(new int[1]));
+    }
+}
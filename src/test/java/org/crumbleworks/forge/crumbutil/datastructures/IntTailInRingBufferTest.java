@@ -0,0 +1,96 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+public class IntTailInRingBufferTest {
+
+    @Test
+    public void constructWithCapacityZero() {
+        assertThrows(IllegalArgumentException.class, () -> new IntTailInRingBuffer(0));
+    }
+    
+    @Test
+    public void constructWithCapacityNegative() {
+        assertThrows(IllegalArgumentException.class, () -> new IntTailInRingBuffer(-7));
+    }
+    
+    @Test
+    public void constructFromArray() {
+        int[] values = {3, 1, 4, 1, 5};
+        IntTailInRingBuffer ring = new IntTailInRingBuffer(values);
+        
+        assertEquals(values.length, ring.size());
+        assertEquals(values.length, ring.capacity());
+        assertArrayEquals(values, ring.toArray());
+    }
+    
+    /* ************************************************************************
+     * ADD
+     */
+    @Test
+    public void addBeyondCapacity() {
+        IntTailInRingBuffer ring = new IntTailInRingBuffer(3);
+        
+        for(int i = 0 ; i < 11 ; i++) { //wraps multiple times
+            ring.add(i);
+        }
+        
+        assertEquals(3, ring.size());
+        assertArrayEquals(new int[]{8, 9, 10}, ring.toArray());
+    }
+    
+    /* ************************************************************************
+     * GET
+     */
+    @Test
+    public void getAfterWrapping() {
+        IntTailInRingBuffer ring = new IntTailInRingBuffer(new int[]{0, 1, 2, 3, 4});
+        ring.add(5);
+        ring.add(6);
+        
+        assertEquals(2, ring.get(0));
+        assertEquals(4, ring.get(2));
+        assertEquals(6, ring.get(4));
+    }
+    
+    @Test
+    public void getOutsideRange() {
+        IntTailInRingBuffer ring = new IntTailInRingBuffer(5);
+        ring.add(1);
+        
+        assertThrows(IllegalArgumentException.class, () -> ring.get(1));
+        assertThrows(IllegalArgumentException.class, () -> ring.get(-1));
+    }
+    
+    /* ************************************************************************
+     * TOARRAY
+     */
+    @Test
+    public void toArrayIntoLargeEnoughArray() {
+        IntTailInRingBuffer ring = new IntTailInRingBuffer(4);
+        for(int i = 0 ; i < 6 ; i++) {
+            ring.add(i);
+        }
+        
+        int[] dest = new int[6];
+        
+        assertSame(dest, ring.toArray(dest));
+        assertArrayEquals(new int[]{2, 3, 4, 5, 0, 0}, dest);
+    }
+    
+    @Test
+    public void toArrayIntoTooSmallArray() {
+        IntTailInRingBuffer ring = new IntTailInRingBuffer(new int[]{7, 8, 9});
+        
+        assertArrayEquals(new int[]{7, 8, 9}, ring.toArray(new int[1]));
+    }
+}
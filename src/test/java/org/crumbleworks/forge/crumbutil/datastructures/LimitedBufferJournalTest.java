@@ -0,0 +1,233 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.crumbleworks.forge.crumbutil.datastructures.LimitedBufferJournal.Codec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+public class LimitedBufferJournalTest {
+
+    private static final Codec<String> UTF8 = new Codec<String>() {
+        @Override
+        public byte[] encode(String element) {
+            return element.getBytes(StandardCharsets.UTF_8);
+        }
+        
+        @Override
+        public String decode(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+    
+    @TempDir
+    Path dir;
+    
+    @Test
+    public void openWithIllegalParameters() {
+        assertThrows(IllegalArgumentException.class, () -> LimitedBufferJournal.open(dir, UTF8, 0, 2, 16));
+        assertThrows(IllegalArgumentException.class, () -> LimitedBufferJournal.open(dir, UTF8, 1024, 0, 16));
+    }
+    
+    /* ************************************************************************
+     * RECOVERY
+     */
+    @Test
+    public void recoverLastEntries() throws IOException {
+        LimitedBuffer<String> buffer = new LimitedBuffer<>(4, String.class, String[].class);
+        LimitedBufferJournal<String> journal = LimitedBufferJournal.open(dir, UTF8, 1 << 20, 4, 1024);
+        buffer.setJournal(journal);
+        
+        for(int i = 0 ; i < 10 ; i++) {
+            buffer.write("entry-" + i);
+        }
+        buffer.writeAll(new String[]{"a", "b"}, 0, 2);
+        journal.close();
+        
+        assertEquals(12, journal.journaledEntries());
+        assertEquals(0, journal.droppedEntries());
+        
+        LimitedBuffer<String> recovered = LimitedBuffer.recover(dir, 4, UTF8, String.class, String[].class);
+        assertArrayEquals(new String[]{"entry-8", "entry-9", "a", "b"}, recovered.read(4));
+    }
+    
+    @Test
+    public void recoverWithoutJournal() throws IOException {
+        LimitedBuffer<String> recovered = LimitedBuffer.recover(dir.resolve("missing"), 4, UTF8, String.class, String[].class);
+        assertEquals(0, recovered.getSize());
+    }
+    
+    @Test
+    public void replayStopsAtTornRecord() throws IOException {
+        LimitedBufferJournal<String> journal = LimitedBufferJournal.open(dir, UTF8, 1 << 20, 4, 16);
+        LimitedBuffer<String> buffer = new LimitedBuffer<>(8, String.class, String[].class);
+        buffer.setJournal(journal);
+        buffer.write("first");
+        buffer.write("second");
+        journal.close();
+        
+        //a crash in the middle of appending a record
+        Path segment = segments().get(0);
+        ByteBuffer torn = ByteBuffer.allocate(6).putInt(100);
+        torn.flip();
+        try(FileChannel channel = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+            channel.write(torn);
+        }
+        
+        List<String> replayed = new ArrayList<>();
+        assertEquals(2, LimitedBufferJournal.replay(dir, UTF8, replayed::add));
+        assertEquals(2, replayed.size());
+        
+        //and a corrupted byte in the second record
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[8 + "first".length() + 8] ^= 1;
+        Files.write(segment, bytes);
+        
+        replayed.clear();
+        LimitedBufferJournal.replay(dir, UTF8, replayed::add);
+        assertEquals(1, replayed.size());
+        assertEquals("first", replayed.get(0));
+    }
+    
+    /* ************************************************************************
+     * SEGMENTS
+     */
+    @Test
+    public void rotatesAndDeletesSegments() throws IOException, InterruptedException {
+        LimitedBufferJournal<String> journal = LimitedBufferJournal.open(dir, UTF8, 64, 3, 16);
+        LimitedBuffer<String> buffer = new LimitedBuffer<>(100, String.class, String[].class);
+        buffer.setJournal(journal);
+        
+        for(int i = 0 ; i < 100 ; i++) {
+            while(journal.journaledEntries() < i) {
+                Thread.sleep(1); //keep batches small, so segments rotate often
+            }
+            buffer.write(String.format("entry-%04d", i));
+        }
+        journal.close();
+        
+        List<Path> segments = segments();
+        assertEquals(3, segments.size());
+        
+        //the kept segments hold the newest entries, in order
+        List<String> replayed = new ArrayList<>();
+        LimitedBufferJournal.replay(dir, UTF8, replayed::add);
+        assertTrue(replayed.size() > 0 && replayed.size() < 100);
+        assertEquals("entry-0099", replayed.get(replayed.size() - 1));
+        for(int i = 1 ; i < replayed.size() ; i++) {
+            assertTrue(replayed.get(i - 1).compareTo(replayed.get(i)) < 0);
+        }
+    }
+    
+    @Test
+    public void reopenContinuesAfterExistingSegments() throws IOException {
+        LimitedBuffer<String> buffer = new LimitedBuffer<>(8, String.class, String[].class);
+        
+        LimitedBufferJournal<String> journal = LimitedBufferJournal.open(dir, UTF8, 1 << 20, 4, 16);
+        buffer.setJournal(journal);
+        buffer.write("before");
+        journal.close();
+        
+        journal = LimitedBufferJournal.open(dir, UTF8, 1 << 20, 4, 16);
+        buffer.setJournal(journal);
+        buffer.write("after");
+        journal.close();
+        
+        assertEquals(2, segments().size());
+        assertArrayEquals(new String[]{"before", "after"}, LimitedBuffer.recover(dir, 8, UTF8, String.class, String[].class).read(8));
+    }
+    
+    @Test
+    public void journalBelongsToOneBuffer() throws IOException {
+        LimitedBufferJournal<String> journal = LimitedBufferJournal.open(dir, UTF8, 1 << 20, 4, 16);
+        try {
+            new LimitedBuffer<>(4, String.class, String[].class).setJournal(journal);
+            assertThrows(IllegalStateException.class, () -> new LimitedBuffer<>(4, String.class, String[].class).setJournal(journal));
+        } finally {
+            journal.close();
+        }
+    }
+    
+    @Test
+    public void elementsWhichCannotBeEncodedAreDropped() throws IOException {
+        Codec<String> picky = new Codec<String>() {
+            @Override
+            public byte[] encode(String element) {
+                if(element.startsWith("throw")) {
+                    throw new IllegalArgumentException(element);
+                }
+                return element.startsWith("null") ? null : UTF8.encode(element);
+            }
+            
+            @Override
+            public String decode(byte[] bytes) {
+                return UTF8.decode(bytes);
+            }
+        };
+        
+        LimitedBuffer<String> buffer = new LimitedBuffer<>(4, String.class, String[].class);
+        LimitedBufferJournal<String> journal = LimitedBufferJournal.open(dir, picky, 1 << 20, 4, 16);
+        buffer.setJournal(journal);
+        buffer.writeAll(Arrays.asList("a", "null", "throw", "b"));
+        journal.close();
+        
+        assertEquals(2, journal.journaledEntries());
+        assertEquals(2, journal.droppedEntries());
+        assertArrayEquals(new String[]{"a", "b"}, LimitedBuffer.recover(dir, 4, picky, String.class, String[].class).read(2));
+    }
+    
+    @Test
+    public void writerFailureIsReportedOnClose() throws IOException {
+        AssertionError fatal = new AssertionError("fatal");
+        Codec<String> failing = new Codec<String>() {
+            @Override
+            public byte[] encode(String element) {
+                throw fatal;
+            }
+            
+            @Override
+            public String decode(byte[] bytes) {
+                return UTF8.decode(bytes);
+            }
+        };
+        
+        LimitedBufferJournal<String> journal = LimitedBufferJournal.open(dir, failing, 1 << 20, 4, 16);
+        LimitedBuffer<String> buffer = new LimitedBuffer<>(4, String.class, String[].class);
+        buffer.setJournal(journal);
+        buffer.write("a");
+        
+        IOException failure = assertThrows(IOException.class, journal::close);
+        assertSame(fatal, failure.getCause());
+        assertEquals(0, journal.journaledEntries());
+    }
+    
+    /* ************************************************************************
+     * HELPERS
+     */
+    private List<Path> segments() throws IOException {
+        try(Stream<Path> files = Files.list(dir)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+}
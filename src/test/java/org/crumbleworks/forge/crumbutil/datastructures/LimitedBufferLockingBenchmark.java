@@ -0,0 +1,80 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import java.util.concurrent.TimeUnit;
+
+import org.crumbleworks.forge.crumbutil.datastructures.LimitedBuffer.LockingMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of a {@link LimitedBuffer} shared by four threads, which read the latest entries and write in between, for each {@link LockingMode}.
+ * <p>Every thread writes once per <code>readsPerWrite</code> reads, so the ratios 1:1, 10:1 and 100:1 are compared.
+ * <p>Run with <code>mvn -P benchmark test-compile exec:exec -Dbenchmark=LimitedBufferLocking</code>
+ * 
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class LimitedBufferLockingBenchmark {
+
+    @Param({"FAIR", "OPTIMISTIC_READ"})
+    private LockingMode locking;
+    
+    @Param({"1", "10", "100"})
+    private int readsPerWrite;
+    
+    private final Integer element = 42;
+    
+    private LimitedBuffer<Integer> buffer;
+    
+    @Setup
+    public void setup() {
+        buffer = new LimitedBuffer<>(1024, false, locking, Integer.class, Integer[].class);
+        for(int i = 0 ; i < 1024 ; i++) {
+            buffer.write(element);
+        }
+    }
+    
+    @State(Scope.Thread)
+    public static class Operations {
+        private int count = 0;
+    }
+    
+    @Benchmark
+    public Object readLatest(Operations operations) {
+        if(++operations.count > readsPerWrite) {
+            operations.count = 0;
+            buffer.write(element);
+            return null;
+        }
+        
+        return buffer.read();
+    }
+    
+    @Benchmark
+    public Object readRecent(Operations operations) {
+        if(++operations.count > readsPerWrite) {
+            operations.count = 0;
+            buffer.write(element);
+            return null;
+        }
+        
+        return buffer.read(16);
+    }
+}
@@ -2,8 +2,21 @@ package org.crumbleworks.forge.crumbutil.datastructures;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.crumbleworks.forge.crumbutil.callbacks.ParameterizedCallback;
+import org.crumbleworks.forge.crumbutil.datastructures.LimitedBuffer.Cursor;
+import org.crumbleworks.forge.crumbutil.datastructures.LimitedBuffer.LockingMode;
+import org.crumbleworks.forge.crumbutil.datastructures.LimitedBuffer.OverflowPolicy;
 
 import org.junit.jupiter.api.Test;
 
@@ -292,4 +305,701 @@ public class LimitedBufferTest {
         
         assertArrayEquals(new Integer[]{0, 13, 43}, buff.readFrom(2, 5));
     }
-}
\ No newline at end of file
+    
+    /* **********************************************************************
+     * POWER OF TWO
+     */
+    
+    @Test
+    public void testCapacityAfterCreation_powerOfTwo() {
+        LimitedBuffer<Integer> buff = new LimitedBuffer<>(5, true, Integer.class, Integer[].class);
+        assertEquals(8, buff.getCapacity());
+    }
+    
+    @Test
+    public void testReadAfterWriteCircularOverlap_powerOfTwo() {
+        LimitedBuffer<Integer> buff = new LimitedBuffer<>(4, true, Integer.class, Integer[].class);
+        
+        for(int i = 0 ; i < 11 ; i++) {
+            buff.write(i);
+        }
+        
+        assertEquals(4, buff.getSize());
+        assertEquals(10, (int)buff.read());
+        assertArrayEquals(new Integer[]{9, 10}, buff.read(2));
+        assertArrayEquals(new Integer[]{7, 8, 9, 10}, buff.read(9));
+        assertEquals(8, (int)buff.readFrom(1));
+        assertArrayEquals(new Integer[]{8, 9}, buff.readFrom(1, 2));
+        assertArrayEquals(new Integer[]{9, 10}, buff.readFrom(2, 7));
+    }
+    
+    /* **********************************************************************
+     * RESIZE
+     */
+    
+    @Test
+    public void testResizeGrowing() {
+        LimitedBuffer<Integer> buff = new LimitedBuffer<>(4, Integer.class, Integer[].class);
+        for(int i = 0 ; i < 7 ; i++) {
+            buff.write(i);
+        }
+        
+        buff.resize(6);
+        assertEquals(6, buff.getCapacity());
+        assertArrayEquals(new Integer[]{3, 4, 5, 6}, buff.read(6));
+        
+        buff.write(7);
+        buff.write(8);
+        buff.write(9);
+        assertEquals(6, buff.getSize());
+        assertArrayEquals(new Integer[]{4, 5, 6, 7, 8, 9}, buff.read(6));
+    }
+    
+    @Test
+    public void testResizeShrinking() {
+        LimitedBuffer<Integer> buff = new LimitedBuffer<>(8, Integer.class, Integer[].class);
+        for(int i = 0 ; i < 11 ; i++) {
+            buff.write(i);
+        }
+        
+        buff.resize(3);
+        assertEquals(3, buff.getSize());
+        assertArrayEquals(new Integer[]{8, 9, 10}, buff.read(5));
+        
+        buff.write(11);
+        assertEquals(11, (int)buff.read());
+        assertArrayEquals(new Integer[]{9, 10, 11}, buff.read(3));
+    }
+    
+    @Test
+    public void testResize_powerOfTwo() {
+        LimitedBuffer<Integer> buff = new LimitedBuffer<>(4, true, Integer.class, Integer[].class);
+        for(int i = 0 ; i < 11 ; i++) {
+            buff.write(i);
+        }
+        
+        buff.resize(5);
+        assertEquals(8, buff.getCapacity());
+        assertArrayEquals(new Integer[]{7, 8, 9, 10}, buff.read(8));
+        
+        for(int i = 11 ; i < 16 ; i++) {
+            buff.write(i);
+        }
+        assertArrayEquals(new Integer[]{8, 9, 10, 11, 12, 13, 14, 15}, buff.read(8));
+    }
+    
+    @Test
+    public void testResizeToIllegalCapacity() {
+        LimitedBuffer<Integer> buff = new LimitedBuffer<>(4, Integer.class, Integer[].class);
+        assertThrows(IllegalArgumentException.class, () -> buff.resize(0));
+    }
+    
+    /* **********************************************************************
+     * READ INTO
+     */
+    
+    @Test
+    public void testReadInto() {
+        for(LockingMode locking : LockingMode.values()) {
+            LimitedBuffer<Integer> buff = new LimitedBuffer<>(5, false, locking, Integer.class, Integer[].class);
+            Integer[] dest = new Integer[4];
+            
+            assertEquals(0, buff.readInto(dest, 0));
+            
+            for(int i = 0 ; i < 8 ; i++) { //wraps
+                buff.write(i);
+            }
+            
+            assertEquals(4, buff.readInto(dest, 0));
+            assertArrayEquals(new Integer[]{4, 5, 6, 7}, dest);
+            
+            Arrays.fill(dest, null);
+            assertEquals(2, buff.readInto(dest, 2));
+            assertArrayEquals(new Integer[]{null, null, 6, 7}, dest);
+            
+            Integer[] large = new Integer[7];
+            assertEquals(5, buff.readInto(large, 1));
+            assertArrayEquals(new Integer[]{null, 3, 4, 5, 6, 7, null}, large);
+            
+            assertEquals(0, buff.readInto(dest, 4));
+            assertThrows(IndexOutOfBoundsException.class, () -> buff.readInto(dest, 5));
+            assertThrows(IndexOutOfBoundsException.class, () -> buff.readInto(dest, -1));
+        }
+    }
+    
+    @Test
+    public void testReadFromInto() {
+        for(LockingMode locking : LockingMode.values()) {
+            LimitedBuffer<Integer> buff = new LimitedBuffer<>(4, true, locking, Integer.class, Integer[].class);
+            for(int i = 0 ; i < 6 ; i++) { //wraps
+                buff.write(i);
+            }
+            
+            Integer[] dest = new Integer[3];
+            assertEquals(3, buff.readFromInto(0, dest));
+            assertArrayEquals(new Integer[]{2, 3, 4}, dest);
+            
+            assertEquals(2, buff.readFromInto(2, dest));
+            assertArrayEquals(new Integer[]{4, 5, 4}, dest);
+            
+            assertThrows(IndexOutOfBoundsException.class, () -> buff.readFromInto(4, dest));
+        }
+    }
+    
+    @Test
+    public void testForEachRecent() {
+        LimitedBuffer<Integer> buff = new LimitedBuffer<>(5, Integer.class, Integer[].class);
+        for(int i = 0 ; i < 7 ; i++) { //wraps
+            buff.write(i);
+        }
+        
+        List<Integer> visited = new ArrayList<>();
+        assertEquals(3, buff.forEachRecent(3, visited::add));
+        assertEquals(Arrays.asList(4, 5, 6), visited);
+        
+        visited.clear();
+        assertEquals(5, buff.forEachRecent(10, visited::add));
+        assertEquals(Arrays.asList(2, 3, 4, 5, 6), visited);
+        
+        visited.clear();
+        assertEquals(0, buff.forEachRecent(0, visited::add));
+        assertTrue(visited.isEmpty());
+    }
+    
+    @Test
+    public void testForEachRecentInBothLockingModes() {
+        for(LockingMode locking : LockingMode.values()) {
+            LimitedBuffer<Integer> buff = new LimitedBuffer<>(5, false, locking, Integer.class, Integer[].class);
+            for(int i = 0 ; i < 7 ; i++) { //wraps
+                buff.write(i);
+            }
+            
+            List<Integer> visited = new ArrayList<>();
+            assertEquals(2, buff.forEachRecent(2, visited::add), locking.name());
+            assertEquals(Arrays.asList(5, 6), visited, locking.name());
+            
+            visited.clear();
+            assertEquals(5, buff.forEachRecent(10, visited::add), locking.name()); //more than visited before
+            assertEquals(Arrays.asList(2, 3, 4, 5, 6), visited, locking.name());
+            
+            //visits nested into each other see the same entries
+            List<Integer> outer = new ArrayList<>();
+            List<Integer> inner = new ArrayList<>();
+            buff.write(7);
+            assertEquals(3, buff.forEachRecent(3, element -> {
+                outer.add(element);
+                if(element == 6) {
+                    buff.forEachRecent(3, inner::add);
+                }
+            }), locking.name());
+            assertEquals(Arrays.asList(5, 6, 7), outer, locking.name());
+            assertEquals(outer, inner, locking.name());
+        }
+    }
+    
+    /* **********************************************************************
+     * OPTIMISTIC READ
+     */
+    
+    @Test
+    public void testOptimisticReadsLikeFair() {
+        LimitedBuffer<Integer> fair = new LimitedBuffer<>(5, false, LockingMode.FAIR, Integer.class, Integer[].class);
+        LimitedBuffer<Integer> optimistic = new LimitedBuffer<>(5, false, LockingMode.OPTIMISTIC_READ, Integer.class, Integer[].class);
+        
+        assertNull(optimistic.read());
+        assertEquals(0, optimistic.read(3).length);
+        
+        for(int i = 0 ; i < 12 ; i++) {
+            fair.write(i);
+            optimistic.write(i);
+            
+            assertEquals(fair.read(), optimistic.read());
+            assertArrayEquals(fair.read(7), optimistic.read(7));
+            for(int index = 0 ; index < fair.getSize() ; index++) {
+                assertEquals(fair.readFrom(index), optimistic.readFrom(index));
+                assertArrayEquals(fair.readFrom(index, 3), optimistic.readFrom(index, 3));
+            }
+        }
+        
+        optimistic.resize(2);
+        assertArrayEquals(new Integer[]{10, 11}, optimistic.read(5));
+        
+        optimistic.clear();
+        assertNull(optimistic.read());
+    }
+    
+    @Test
+    public void testOptimisticReadsDuringWrites() throws InterruptedException {
+        LimitedBuffer<Integer> buff = new LimitedBuffer<>(16, true, LockingMode.OPTIMISTIC_READ, Integer.class, Integer[].class);
+        AtomicBoolean running = new AtomicBoolean(true);
+        
+        Thread writer = new Thread(() -> {
+            for(int i = 0 ; running.get() ; i++) {
+                buff.write(i);
+                if(i % 1_000 == 999) {
+                    buff.resize(8 + (i / 1_000) % 3 * 8); //resizes must not tear reads either
+                }
+            }
+        });
+        writer.start();
+        
+        try {
+            for(int r = 0 ; r < 100_000 ; r++) {
+                Integer[] read = buff.read(8);
+                for(int i = 1 ; i < read.length ; i++) {
+                    assertEquals(read[i - 1] + 1, (int)read[i]);
+                }
+                
+                Integer last = buff.read();
+                assertTrue(last == null || last >= 0);
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+    
+    @Test
+    public void testOptimisticCallbacksMayReadAgain() throws InterruptedException {
+        LimitedBuffer<Integer> buff = new LimitedBuffer<>(8, false, LockingMode.OPTIMISTIC_READ, Integer.class, Integer[].class);
+        Cursor cursor = buff.cursor();
+        buff.write(1);
+        buff.write(2);
+        
+        //a queued writer must not keep a callback from reading the buffer again
+        List<Integer> sizes = new ArrayList<>();
+        ParameterizedCallback<Integer> callback = (element) -> {
+            Thread writer = new Thread(() -> buff.write(element * 10));
+            writer.start();
+            try {
+                writer.join(5_000);
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            assertFalse(writer.isAlive());
+            
+            sizes.add(buff.getSize());
+            assertEquals(element * 10, (int)buff.read());
+        };
+        
+        assertEquals(2, buff.forEachRecent(2, callback));
+        assertEquals(Arrays.asList(3, 4), sizes);
+        
+        sizes.clear();
+        assertEquals(2, buff.awaitForEach(cursor, 2, Duration.ofSeconds(5), callback));
+        assertEquals(Arrays.asList(5, 6), sizes);
+        assertEquals(2, cursor.position());
+    }
+    
+    /* **********************************************************************
+     * CURSOR
+     */
+    
+    @Test
+    public void testCursorFollowsNewEntries() throws InterruptedException {
+        LimitedBuffer<Integer> buff = new LimitedBuffer<>(5, Integer.class, Integer[].class);
+        buff.write(1);
+        
+        Cursor cursor = buff.cursor();
+        assertEquals(1, cursor.position());
+        assertNull(buff.awaitNext(cursor, Duration.ZERO));
+        
+        buff.write(2);
+        buff.write(3);
+        assertEquals(2, (int)buff.awaitNext(cursor, Duration.ZERO));
+        assertEquals(3, (int)buff.awaitNext(cursor, Duration.ZERO));
+        assertNull(buff.awaitNext(cursor, Duration.ofMillis(10)));
+        assertEquals(3, cursor.position());
+        assertEquals(0, cursor.missed());
+    }
+    
+    @Test
+    public void testCursorCountsMissedEntries() throws InterruptedException {
+        LimitedBuffer<Integer> buff = new LimitedBuffer<>(5, Integer.class, Integer[].class);
+        Cursor cursor = buff.cursor();
+        for(int i = 0 ; i < 8 ; i++) {
+            buff.write(i);
+        }
+        
+        assertEquals(3, (int)buff.awaitNext(cursor, Duration.ZERO));
+        assertEquals(3, cursor.missed());
+        
+        buff.clear();
+        buff.write(8);
+        assertArrayEquals(new Integer[]{8}, buff.awaitBatch(cursor, 10, Duration.ZERO));
+        assertEquals(7, cursor.missed()); //4 to 7 were cleared
+    }
+    
+    @Test
+    public void testAwaitBatch() throws InterruptedException {
+        LimitedBuffer<Integer> buff = new LimitedBuffer<>(8, true, Integer.class, Integer[].class);
+        Cursor cursor = buff.cursor();
+        
+        assertEquals(0, buff.awaitBatch(cursor, 4, Duration.ofMillis(10)).length);
+        
+        for(int i = 0 ; i < 6 ; i++) {
+            buff.write(i);
+        }
+        assertArrayEquals(new Integer[]{0, 1, 2, 3}, buff.awaitBatch(cursor, 4, Duration.ZERO));
+        assertArrayEquals(new Integer[]{4, 5}, buff.awaitBatch(cursor, 4, Duration.ZERO));
+        
+        assertThrows(IllegalArgumentException.class, () -> buff.awaitBatch(cursor, 0, Duration.ZERO));
+    }
+    
+    @Test
+    public void testAwaitNextWakesUpOnWrite() throws InterruptedException {
+        final int writes = 10_000;
+        LimitedBuffer<Integer> buff = new LimitedBuffer<>(writes, Integer.class, Integer[].class);
+        Cursor cursor = buff.cursor();
+        
+        Thread writer = new Thread(() -> {
+            for(int i = 0 ; i < writes ; i++) {
+                buff.write(i);
+                if(i % 1_000 == 0) {
+                    try {
+                        Thread.sleep(1); //let the consumer catch up and wait
+                    } catch(InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        });
+        writer.start();
+        
+        for(int i = 0 ; i < writes ; i++) {
+            assertEquals(i, (int)buff.awaitNext(cursor, Duration.ofSeconds(10)));
+        }
+        assertEquals(0, cursor.missed());
+        
+        writer.join();
+    }
+    
+    /* **********************************************************************
+     * GATING
+     */
+    
+    @Test
+    public void testGatingCursorHoldsUpWriter() throws InterruptedException {
+        LimitedBuffer<Integer> buff = new LimitedBuffer<>(4, Integer.class, Integer[].class);
+        Cursor cursor = buff.gatingCursor();
+        assertTrue(cursor.isGating());
+        
+        for(int i = 0 ; i < 4 ; i++) {
+            buff.write(i);
+        }
+        
+        Thread writer = new Thread(() -> buff.write(4));
+        writer.start();
+        writer.join(50);
+        assertTrue(writer.isAlive());
+        
+        assertEquals(0, (int)buff.awaitNext(cursor, Duration.ZERO));
+        writer.join(10_000);
+        assertFalse(writer.isAlive());
+        
+        assertArrayEquals(new Integer[]{1, 2, 3, 4}, buff.awaitBatch(cursor, 10, Duration.ZERO));
+        assertEquals(0, cursor.missed());
+    }
+    
+    @Test
+    public void testReleaseUnblocksWriter() throws InterruptedException {
+        LimitedBuffer<Integer> buff = new LimitedBuffer<>(2, Integer.class, Integer[].class);
+        Cursor cursor = buff.gatingCursor();
+        buff.write(0);
+        buff.write(1);
+        
+        Thread writer = new Thread(() -> buff.write(2));
+        writer.start();
+        writer.join(50);
+        assertTrue(writer.isAlive());
+        
+        buff.release(cursor);
+        writer.join(10_000);
+        assertFalse(writer.isAlive());
+        assertArrayEquals(new Integer[]{1, 2}, buff.read(2));
+    }
+    
+    @Test
+    public void testGatedWriterCanBeInterrupted() throws InterruptedException {
+        LimitedBuffer<Integer> buff = new LimitedBuffer<>(1, Integer.class, Integer[].class);
+        buff.gatingCursor(); //never consumes
+        buff.write(0);
+        
+        AtomicBoolean written = new AtomicBoolean(true);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            written.set(buff.offer(1));
+            interrupted.set(Thread.currentThread().isInterrupted());
+        });
+        writer.start();
+        while(buff.getBlockedWrites() == 0) {
+            Thread.yield();
+        }
+        
+        writer.interrupt();
+        writer.join(10_000);
+        assertFalse(writer.isAlive());
+        assertFalse(written.get());
+        assertTrue(interrupted.get());
+        assertEquals(1, buff.getDroppedWrites());
+        assertArrayEquals(new Integer[]{0}, buff.read(1));
+    }
+    
+    @Test
+    public void testFanOutToGatingConsumers() throws InterruptedException {
+        final int writes = 20_000;
+        final int consumers = 3;
+        LimitedBuffer<Integer> buff = new LimitedBuffer<>(8, true, LockingMode.OPTIMISTIC_READ, Integer.class, Integer[].class);
+        
+        List<Cursor> cursors = new ArrayList<>();
+        List<List<Integer>> received = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for(int c = 0 ; c < consumers ; c++) {
+            Cursor cursor = buff.gatingCursor();
+            List<Integer> values = new ArrayList<>();
+            cursors.add(cursor);
+            received.add(values);
+            
+            Thread consumer = new Thread(() -> {
+                try {
+                    while(values.size() < writes) {
+                        buff.awaitForEach(cursor, 5, Duration.ofSeconds(10), values::add);
+                    }
+                } catch(InterruptedException e) {
+                    return;
+                }
+            });
+            consumer.start();
+            threads.add(consumer);
+        }
+        
+        for(int i = 0 ; i < writes ; i++) {
+            buff.write(i);
+        }
+        for(Thread consumer : threads) {
+            consumer.join(10_000);
+        }
+        
+        for(int c = 0 ; c < consumers ; c++) {
+            assertEquals(0, cursors.get(c).missed());
+            assertEquals(writes, received.get(c).size());
+            for(int i = 0 ; i < writes ; i++) {
+                assertEquals(i, (int)received.get(c).get(i));
+            }
+        }
+    }
+    
+    /* **********************************************************************
+     * OVERFLOW
+     */
+    
+    @Test
+    public void testOverwriteOldestByDefault() {
+        LimitedBuffer<Integer> buff = new LimitedBuffer<>(2, Integer.class, Integer[].class);
+        assertEquals(OverflowPolicy.OVERWRITE_OLDEST, buff.getOverflowPolicy());
+        
+        for(int i = 0 ; i < 4 ; i++) {
+            assertTrue(buff.offer(i));
+        }
+        assertArrayEquals(new Integer[]{2, 3}, buff.read(2));
+        assertEquals(0, buff.getDroppedWrites());
+    }
+    
+    @Test
+    public void testPoliciesOverwriteWithoutGatingCursors() {
+        OverflowPolicy[] policies = {OverflowPolicy.DROP_NEWEST, OverflowPolicy.REJECT, OverflowPolicy.block(Duration.ofSeconds(10))};
+        for(OverflowPolicy policy : policies) {
+            LimitedBuffer<Integer> buff = new LimitedBuffer<>(2, false, LockingMode.FAIR, policy, Integer.class, Integer[].class);
+            buff.cursor(); //plain cursors never hold up writers
+            for(int i = 0 ; i < 4 ; i++) {
+                assertTrue(buff.offer(i), policy.toString());
+            }
+            assertEquals(2, buff.writeAll(Arrays.asList(4, 5)), policy.toString());
+            
+            assertArrayEquals(new Integer[]{4, 5}, buff.read(2), policy.toString());
+            assertEquals(0, buff.getDroppedWrites() + buff.getRejectedWrites() + buff.getBlockedWrites(), policy.toString());
+        }
+    }
+    
+    @Test
+    public void testDropNewest() throws InterruptedException {
+        LimitedBuffer<Integer> buff = new LimitedBuffer<>(3, false, LockingMode.FAIR, OverflowPolicy.DROP_NEWEST, Integer.class, Integer[].class);
+        Cursor cursor = buff.gatingCursor();
+        for(int i = 0 ; i < 3 ; i++) {
+            assertTrue(buff.offer(i));
+        }
+        assertFalse(buff.offer(3));
+        assertFalse(buff.offer(4));
+        
+        assertArrayEquals(new Integer[]{0, 1, 2}, buff.read(3));
+        assertEquals(2, buff.getDroppedWrites());
+        
+        //read entries count as consumed
+        assertEquals(0, (int)buff.awaitNext(cursor, Duration.ZERO));
+        assertTrue(buff.offer(5));
+        assertFalse(buff.offer(6));
+        assertArrayEquals(new Integer[]{1, 2, 5}, buff.read(3));
+        assertEquals(3, buff.getDroppedWrites());
+        
+        //once released, nothing is pending anymore
+        buff.release(cursor);
+        assertTrue(buff.offer(7));
+        assertArrayEquals(new Integer[]{2, 5, 7}, buff.read(3));
+    }
+    
+    @Test
+    public void testReject() {
+        LimitedBuffer<Integer> buff = new LimitedBuffer<>(2, true, LockingMode.FAIR, OverflowPolicy.REJECT, Integer.class, Integer[].class);
+        buff.gatingCursor();
+        buff.write(0);
+        buff.write(1);
+        
+        assertThrows(IllegalStateException.class, () -> buff.write(2));
+        assertEquals(1, buff.getRejectedWrites());
+        assertArrayEquals(new Integer[]{0, 1}, buff.read(2));
+    }
+    
+    @Test
+    public void testBlockTimesOut() {
+        LimitedBuffer<Integer> buff = new LimitedBuffer<>(1, false, LockingMode.FAIR, OverflowPolicy.block(Duration.ofMillis(20)), Integer.class, Integer[].class);
+        buff.gatingCursor();
+        buff.write(0);
+        
+        long start = System.nanoTime();
+        assertFalse(buff.offer(1));
+        assertTrue(System.nanoTime() - start >= Duration.ofMillis(20).toNanos());
+        
+        assertEquals(1, buff.getBlockedWrites());
+        assertEquals(1, buff.getDroppedWrites());
+        assertEquals(0, (int)buff.read());
+    }
+    
+    @Test
+    public void testBlockUntilConsumed() throws InterruptedException {
+        LimitedBuffer<Integer> buff = new LimitedBuffer<>(2, false, LockingMode.OPTIMISTIC_READ, OverflowPolicy.block(Duration.ofSeconds(10)), Integer.class, Integer[].class);
+        Cursor cursor = buff.gatingCursor();
+        buff.write(0);
+        buff.write(1);
+        
+        AtomicBoolean written = new AtomicBoolean();
+        Thread writer = new Thread(() -> written.set(buff.offer(2)));
+        writer.start();
+        writer.join(50);
+        assertTrue(writer.isAlive());
+        
+        assertEquals(0, (int)buff.awaitNext(cursor, Duration.ZERO));
+        writer.join(10_000);
+        assertTrue(written.get());
+        assertEquals(1, buff.getBlockedWrites());
+        assertEquals(0, buff.getDroppedWrites());
+    }
+    
+    @Test
+    public void testBlockWithIllegalTimeout() {
+        assertThrows(IllegalArgumentException.class, () -> OverflowPolicy.block(Duration.ofSeconds(-1)));
+        assertEquals("BLOCK[PT1S]", OverflowPolicy.block(Duration.ofSeconds(1)).toString());
+    }
+    
+    /* **********************************************************************
+     * BULK WRITE
+     */
+    
+    @Test
+    public void testWriteAllLikeSingleWrites() {
+        for(boolean powerOfTwo : new boolean[]{false, true}) {
+            for(int prefill = 0 ; prefill < 10 ; prefill++) {
+                for(int len = 0 ; len < 20 ; len++) {
+                    LimitedBuffer<Integer> single = new LimitedBuffer<>(8, powerOfTwo, Integer.class, Integer[].class);
+                    LimitedBuffer<Integer> bulk = new LimitedBuffer<>(8, powerOfTwo, Integer.class, Integer[].class);
+                    for(int i = 0 ; i < prefill ; i++) {
+                        single.write(-i);
+                        bulk.write(-i);
+                    }
+                    
+                    Integer[] batch = new Integer[len + 2];
+                    for(int i = 0 ; i < batch.length ; i++) {
+                        batch[i] = i;
+                    }
+                    for(int i = 1 ; i <= len ; i++) {
+                        single.write(batch[i]);
+                    }
+                    
+                    assertEquals(len, bulk.writeAll(batch, 1, len));
+                    assertEquals(single.getSize(), bulk.getSize());
+                    assertArrayEquals(single.read(8), bulk.read(8));
+                    
+                    //keeps on writing from where the batch ended
+                    single.write(100);
+                    bulk.write(100);
+                    assertArrayEquals(single.read(8), bulk.read(8));
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void testWriteAllCollection() {
+        LimitedBuffer<Integer> buff = new LimitedBuffer<>(4, Integer.class, Integer[].class);
+        buff.write(0);
+        
+        assertEquals(5, buff.writeAll(Arrays.asList(1, 2, 3, 4, 5)));
+        assertArrayEquals(new Integer[]{2, 3, 4, 5}, buff.read(4));
+    }
+    
+    @Test
+    public void testWriteAllIllegalArguments() {
+        LimitedBuffer<Integer> buff = new LimitedBuffer<>(4, Integer.class, Integer[].class);
+        Integer[] batch = {1, 2, 3};
+        
+        assertThrows(IndexOutOfBoundsException.class, () -> buff.writeAll(batch, 2, 2));
+        assertThrows(IndexOutOfBoundsException.class, () -> buff.writeAll(batch, -1, 1));
+        assertThrows(IllegalArgumentException.class, () -> buff.writeAll(new Integer[]{1, null}, 0, 2));
+        assertEquals(0, buff.getSize());
+    }
+    
+    @Test
+    public void testWriteAllWithOverflowPolicy() {
+        LimitedBuffer<Integer> dropping = new LimitedBuffer<>(4, false, LockingMode.FAIR, OverflowPolicy.DROP_NEWEST, Integer.class, Integer[].class);
+        dropping.gatingCursor();
+        dropping.write(0);
+        dropping.write(1);
+        
+        assertEquals(2, dropping.writeAll(new Integer[]{2, 3, 4, 5, 6}, 0, 5));
+        assertArrayEquals(new Integer[]{0, 1, 2, 3}, dropping.read(4));
+        assertEquals(3, dropping.getDroppedWrites());
+        
+        LimitedBuffer<Integer> rejecting = new LimitedBuffer<>(2, false, LockingMode.FAIR, OverflowPolicy.REJECT, Integer.class, Integer[].class);
+        rejecting.gatingCursor();
+        assertThrows(IllegalStateException.class, () -> rejecting.writeAll(Arrays.asList(0, 1, 2)));
+        assertArrayEquals(new Integer[]{0, 1}, rejecting.read(2));
+    }
+    
+    @Test
+    public void testWriteAllWaitsForGatingCursor() throws InterruptedException {
+        final int writes = 1_000;
+        LimitedBuffer<Integer> buff = new LimitedBuffer<>(16, Integer.class, Integer[].class);
+        Cursor cursor = buff.gatingCursor();
+        
+        Thread writer = new Thread(() -> {
+            Integer[] batch = new Integer[100];
+            for(int b = 0 ; b < writes / batch.length ; b++) {
+                for(int i = 0 ; i < batch.length ; i++) {
+                    batch[i] = b * batch.length + i;
+                }
+                buff.writeAll(batch, 0, batch.length);
+            }
+        });
+        writer.start();
+        
+        List<Integer> received = new ArrayList<>();
+        while(received.size() < writes) {
+            buff.awaitForEach(cursor, 7, Duration.ofSeconds(10), received::add);
+        }
+        writer.join();
+        
+        assertEquals(0, cursor.missed());
+        for(int i = 0 ; i < writes ; i++) {
+            assertEquals(i, (int)received.get(i));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+public class LongHeadInRingBufferTest {
+
+    @Test
+    public void constructWithCapacityZero() {
+        assertThrows(IllegalArgumentException.class, () -> new LongHeadInRingBuffer(0));
+    }
+    
+    @Test
+    public void constructWithCapacityNegative() {
+        assertThrows(IllegalArgumentException.class, () -> new LongHeadInRingBuffer(-7));
+    }
+    
+    @Test
+    public void constructFromArray() {
+        long[] values = {3L, 1L, 4L, 1L, 5L};
+        LongHeadInRingBuffer ring = new LongHeadInRingBuffer(values);
+        
+        assertEquals(values.length, ring.size());
+        assertEquals(values.length, ring.capacity());
+        assertArrayEquals(values, ring.toArray());
+    }
+    
+    /* ************************************************************************
+     * ADD
+     */
+    @Test
+    public void addBeyondCapacity() {
+        LongHeadInRingBuffer ring = new LongHeadInRingBuffer(3);
+        
+        for(long l = 0 ; l < 11 ; l++) { //wraps multiple times
+            ring.add(l);
+        }
+        
+        assertEquals(3, ring.size());
+        assertArrayEquals(new long[]{10L, 9L, 8L}, ring.toArray());
+    }
+    
+    /* ************************************************************************
+     * GET
+     */
+    @Test
+    public void getAfterWrapping() {
+        LongHeadInRingBuffer ring = new LongHeadInRingBuffer(new long[]{4L, 3L, 2L, 1L, 0L});
+        ring.add(5L);
+        ring.add(6L);
+        
+        assertEquals(6L, ring.get(0));
+        assertEquals(4L, ring.get(2));
+        assertEquals(2L, ring.get(4));
+    }
+    
+    @Test
+    public void getOutsideRange() {
+        LongHeadInRingBuffer ring = new LongHeadInRingBuffer(5);
+        ring.add(1L);
+        
+        assertThrows(IllegalArgumentException.class, () -> ring.get(1));
+        assertThrows(IllegalArgumentException.class, () -> ring.get(-1));
+    }
+    
+    /* ************************************************************************
+     * TOARRAY
+     */
+    @Test
+    public void toArrayIntoLargeEnoughArray() {
+        LongHeadInRingBuffer ring = new LongHeadInRingBuffer(4);
+        for(long l = 0 ; l < 6 ; l++) {
+            ring.add(l);
+        }
+        
+        long[] dest = new long[6];
+        
+        assertSame(dest, ring.toArray(dest));
+        assertArrayEquals(new long[]{5L, 4L, 3L, 2L, 0L, 0L}, dest);
+    }
+    
+    @Test
+    public void toArrayIntoTooSmallArray() {
+        LongHeadInRingBuffer ring = new LongHeadInRingBuffer(new long[]{7L, 8L, 9L});
+        
+        assertArrayEquals(new long[]{7L, 8L, 9L}, ring.toArray(new long[1]));
+    }
+}
@@ -0,0 +1,96 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+public class LongTailInRingBufferTest {
+
+    @Test
+    public void constructWithCapacityZero() {
+        assertThrows(IllegalArgumentException.class, () -> new LongTailInRingBuffer(0));
+    }
+    
+    @Test
+    public void constructWithCapacityNegative() {
+        assertThrows(IllegalArgumentException.class, () -> new LongTailInRingBuffer(-7));
+    }
+    
+    @Test
+    public void constructFromArray() {
+        long[] values = {3L, 1L, 4L, 1L, 5L};
+        LongTailInRingBuffer ring = new LongTailInRingBuffer(values);
+        
+        assertEquals(values.length, ring.size());
+        assertEquals(values.length, ring.capacity());
+        assertArrayEquals(values, ring.toArray());
+    }
+    
+    /* ************************************************************************
+     * ADD
+     */
+    @Test
+    public void addBeyondCapacity() {
+        LongTailInRingBuffer ring = new LongTailInRingBuffer(3);
+        
+        for(long l = 0 ; l < 11 ; l++) { //wraps multiple times
+            ring.add(l);
+        }
+        
+        assertEquals(3, ring.size());
+        assertArrayEquals(new long[]{8L, 9L, 10L}, ring.toArray());
+    }
+    
+    /* ************************************************************************
+     * GET
+     */
+    @Test
+    public void getAfterWrapping() {
+        LongTailInRingBuffer ring = new LongTailInRingBuffer(new long[]{0L, 1L, 2L, 3L, 4L});
+        ring.add(5L);
+        ring.add(6L);
+        
+        assertEquals(2L, ring.get(0));
+        assertEquals(4L, ring.get(2));
+        assertEquals(6L, ring.get(4));
+    }
+    
+    @Test
+    public void getOutsideRange() {
+        LongTailInRingBuffer ring = new LongTailInRingBuffer(5);
+        ring.add(1L);
+        
+        assertThrows(IllegalArgumentException.class, () -> ring.get(1));
+        assertThrows(IllegalArgumentException.class, () -> ring.get(-1));
+    }
+    
+    /* ************************************************************************
+     * TOARRAY
+     */
+    @Test
+    public void toArrayIntoLargeEnoughArray() {
+        LongTailInRingBuffer ring = new LongTailInRingBuffer(4);
+        for(long l = 0 ; l < 6 ; l++) {
+            ring.add(l);
+        }
+        
+        long[] dest = new long[6];
+        
+        assertSame(dest, ring.toArray(dest));
+        assertArrayEquals(new long[]{2L, 3L, 4L, 5L, 0L, 0L}, dest);
+    }
+    
+    @Test
+    public void toArrayIntoTooSmallArray() {
+        LongTailInRingBuffer ring = new LongTailInRingBuffer(new long[]{7L, 8L, 9L});
+        
+        assertArrayEquals(new long[]{7L, 8L, 9L}, ring.toArray(new long[1]));
+    }
+}
@@ -0,0 +1,70 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.crumbleworks.forge.crumbutil.datastructures.LookupNode.LookupResult;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+public class LookupNodeTest {
+
+    @Test
+    public void putAndResolve() {
+        LookupNode<String> root = new LookupNode<>();
+        root.put("help", "HELP");
+        root.put("hello", "HELLO");
+        root.put("help", "HELP!");
+        
+        assertEquals("HELP!", root.resolve("help", false).getNode().getValue());
+        assertNull(root.resolve("hel", false));
+        assertNull(root.resolve("nope", true));
+        assertEquals(Arrays.asList("HELLO", "HELP!"), new ArrayList<>(root.getPossibleValues()));
+    }
+    
+    @Test
+    public void resolvePartialKeyAlongStraightPath() {
+        LookupNode<String> root = new LookupNode<>();
+        root.put("quit", "QUIT");
+        root.put("query", "QUERY");
+        
+        LookupResult<String> fork = root.resolve("q", true);
+        assertEquals("q", fork.getKey());
+        assertEquals(Arrays.asList("QUERY", "QUIT"), new ArrayList<>(fork.getNode().getPossibleValues()));
+        
+        assertEquals("QUIT", root.resolve("qui", true).getNode().getValue());
+    }
+    
+    @Test
+    public void concurrentPutsAreAllVisible() throws InterruptedException {
+        LookupNode<Integer> root = new LookupNode<>();
+        Thread[] writers = new Thread[4];
+        for(int w = 0 ; w < writers.length ; w++) {
+            int offset = w * 1_000;
+            writers[w] = new Thread(() -> {
+                for(int i = offset ; i < offset + 1_000 ; i++) {
+                    root.put("k" + i, i);
+                    root.getPossibleValues(); //readers and writers interleave
+                }
+            });
+            writers[w].start();
+        }
+        for(Thread writer : writers) {
+            writer.join();
+        }
+        
+        List<Integer> values = new ArrayList<>(root.getPossibleValues());
+        assertEquals(4_000, values.size());
+        for(int i = 0 ; i < 4_000 ; i++) {
+            assertEquals(i, (int)values.get(i));
+            assertEquals(i, (int)root.resolve("k" + i, false).getNode().getValue());
+        }
+    }
+}
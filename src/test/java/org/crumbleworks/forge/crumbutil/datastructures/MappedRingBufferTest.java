@@ -0,0 +1,129 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.crumbleworks.forge.crumbutil.datastructures.MappedRingBuffer.Durability;
+import org.crumbleworks.forge.crumbutil.datastructures.OffHeapRingBuffer.Record;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+public class MappedRingBufferTest {
+
+    @TempDir
+    Path tmp;
+    
+    @Test
+    public void reopenRestoresContents() throws IOException {
+        Path file = tmp.resolve("window.ring");
+        
+        try(MappedRingBuffer ring = MappedRingBuffer.open(file, 16, 5, Durability.OS_FLUSHED)) {
+            fill(ring, 0, 7); //wraps
+        }
+        
+        try(MappedRingBuffer ring = MappedRingBuffer.open(file, 16, 5, Durability.OS_FLUSHED)) {
+            assertEquals(5, ring.size());
+            assertEquals(Arrays.asList(2L, 3L, 4L, 5L, 6L), timestamps(ring));
+            assertEquals(3.0d, ring.get(1, ring.newRecord()).getDouble(8));
+            
+            fill(ring, 7, 2);
+            assertEquals(Arrays.asList(4L, 5L, 6L, 7L, 8L), timestamps(ring));
+        }
+    }
+    
+    @Test
+    public void reopenAfterForcedFlushes() throws IOException {
+        Path file = tmp.resolve("forced.ring");
+        
+        try(MappedRingBuffer ring = MappedRingBuffer.open(file, 16, 3, Durability.FORCED)) {
+            fill(ring, 0, 2);
+            ring.flush();
+            fill(ring, 2, 2);
+            ring.flush();
+        }
+        
+        try(MappedRingBuffer ring = MappedRingBuffer.open(file, 16, 3, Durability.FORCED)) {
+            assertEquals(Arrays.asList(1L, 2L, 3L), timestamps(ring));
+        }
+    }
+    
+    @Test
+    public void headerOnlyMovesOnFlush() throws IOException {
+        for(Durability durability : Durability.values()) {
+            Path file = tmp.resolve(durability + ".ring");
+            
+            try(MappedRingBuffer ring = MappedRingBuffer.open(file, 16, 5, durability)) {
+                fill(ring, 0, 2);
+                ring.flush();
+                fill(ring, 2, 2);
+                
+                //a crash now must not expose the records added since the flush
+                try(MappedRingBuffer crashed = MappedRingBuffer.open(file, 16, 5, durability)) {
+                    assertEquals(Arrays.asList(0L, 1L), timestamps(crashed));
+                }
+                
+                ring.flush();
+                try(MappedRingBuffer flushed = MappedRingBuffer.open(file, 16, 5, durability)) {
+                    assertEquals(Arrays.asList(0L, 1L, 2L, 3L), timestamps(flushed));
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void reopenAfterClear() throws IOException {
+        Path file = tmp.resolve("cleared.ring");
+        
+        try(MappedRingBuffer ring = MappedRingBuffer.open(file, 16, 3, Durability.OS_FLUSHED)) {
+            fill(ring, 0, 2);
+            ring.clear();
+        }
+        
+        try(MappedRingBuffer ring = MappedRingBuffer.open(file, 16, 3, Durability.OS_FLUSHED)) {
+            assertEquals(0, ring.size());
+        }
+    }
+    
+    @Test
+    public void reopenWithDifferentLayout() throws IOException {
+        Path file = tmp.resolve("layout.ring");
+        MappedRingBuffer.open(file, 16, 5, Durability.OS_FLUSHED).close();
+        
+        assertThrows(IllegalArgumentException.class, () -> MappedRingBuffer.open(file, 8, 5, Durability.OS_FLUSHED));
+        assertThrows(IllegalArgumentException.class, () -> MappedRingBuffer.open(file, 16, 6, Durability.OS_FLUSHED));
+    }
+    
+    @Test
+    public void openForeignFile() throws IOException {
+        Path file = Files.write(tmp.resolve("foreign.txt"), "definitely not a ringbuffer".getBytes());
+        
+        assertThrows(IOException.class, () -> MappedRingBuffer.open(file, 16, 5, Durability.OS_FLUSHED));
+    }
+    
+    /* ************************************************************************
+     * HELPERS
+     */
+    private static void fill(OffHeapRingBuffer ring, long from, int records) {
+        Record record = ring.newRecord();
+        for(long l = from ; l < from + records ; l++) {
+            ring.add(record).putLong(0, l).putDouble(8, l);
+        }
+    }
+    
+    private static List<Long> timestamps(OffHeapRingBuffer ring) {
+        List<Long> timestamps = new ArrayList<>();
+        ring.forEach((record) -> timestamps.add(record.getLong(0)));
+        return timestamps;
+    }
+}
@@ -0,0 +1,126 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.crumbleworks.forge.crumbutil.datastructures.OffHeapRingBuffer.Ordering;
+import org.crumbleworks.forge.crumbutil.datastructures.OffHeapRingBuffer.Record;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+public class OffHeapRingBufferTest {
+
+    @Test
+    public void constructWithIllegalParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapRingBuffer(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapRingBuffer(16, 0));
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapRingBuffer(16, -3));
+    }
+    
+    /* ************************************************************************
+     * ADD & GET
+     */
+    @Test
+    public void addAndGetOldestFirst() {
+        OffHeapRingBuffer ring = new OffHeapRingBuffer(16, 5);
+        fill(ring, 7); //wraps
+        
+        assertEquals(5, ring.size());
+        assertEquals(Arrays.asList(2L, 3L, 4L, 5L, 6L), timestamps(ring));
+        
+        Record record = ring.get(0, ring.newRecord());
+        assertEquals(2L, record.getLong(0));
+        assertEquals(1.0d, record.getDouble(8));
+    }
+    
+    @Test
+    public void addAndGetYoungestFirst() {
+        OffHeapRingBuffer ring = new OffHeapRingBuffer(16, 5, Ordering.YOUNGEST_FIRST);
+        fill(ring, 7);
+        
+        assertEquals(Arrays.asList(6L, 5L, 4L, 3L, 2L), timestamps(ring));
+        assertEquals(3.0d, ring.get(0, ring.newRecord()).getDouble(8));
+    }
+    
+    @Test
+    public void addAcrossSegments() {
+        OffHeapRingBuffer ring = new OffHeapRingBuffer(16, 10, Ordering.OLDEST_FIRST, 64); //4 records per segment
+        fill(ring, 23);
+        
+        assertEquals(10, ring.size());
+        assertEquals(Arrays.asList(13L, 14L, 15L, 16L, 17L, 18L, 19L, 20L, 21L, 22L), timestamps(ring));
+    }
+    
+    @Test
+    public void addReturnsBoundFlyweight() {
+        OffHeapRingBuffer ring = new OffHeapRingBuffer(8, 2);
+        Record record = ring.newRecord();
+        
+        assertSame(record, ring.add(record).putLong(0, 42L));
+        assertEquals(42L, ring.get(0, ring.newRecord()).getLong(0));
+    }
+    
+    @Test
+    public void getOutsideRange() {
+        OffHeapRingBuffer ring = new OffHeapRingBuffer(16, 5);
+        fill(ring, 2);
+        
+        assertThrows(IllegalArgumentException.class, () -> ring.get(2, ring.newRecord()));
+        assertThrows(IllegalArgumentException.class, () -> ring.get(-1, ring.newRecord()));
+    }
+    
+    @Test
+    public void clear() {
+        OffHeapRingBuffer ring = new OffHeapRingBuffer(16, 5);
+        fill(ring, 3);
+        ring.clear();
+        
+        assertEquals(0, ring.size());
+        assertEquals(Arrays.asList(), timestamps(ring));
+    }
+    
+    /* ************************************************************************
+     * FLYWEIGHT
+     */
+    @Test
+    public void fieldsOutsideRecord() {
+        OffHeapRingBuffer ring = new OffHeapRingBuffer(12, 5);
+        Record record = ring.add(ring.newRecord());
+        
+        record.putInt(8, 1); //last 4 bytes
+        
+        assertThrows(IndexOutOfBoundsException.class, () -> record.putLong(8, 1L));
+        assertThrows(IndexOutOfBoundsException.class, () -> record.getInt(-1));
+    }
+    
+    @Test
+    public void unboundFlyweight() {
+        OffHeapRingBuffer ring = new OffHeapRingBuffer(8, 5);
+        
+        assertThrows(IllegalStateException.class, () -> ring.newRecord().getLong(0));
+    }
+    
+    /* ************************************************************************
+     * HELPERS
+     */
+    private static void fill(OffHeapRingBuffer ring, int records) {
+        Record record = ring.newRecord();
+        for(long l = 0 ; l < records ; l++) {
+            ring.add(record).putLong(0, l).putDouble(8, l / 2);
+        }
+    }
+    
+    private static List<Long> timestamps(OffHeapRingBuffer ring) {
+        List<Long> timestamps = new ArrayList<>();
+        ring.forEach((record) -> timestamps.add(record.getLong(0)));
+        return timestamps;
+    }
+}
@@ -0,0 +1,85 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the default index mapping of the ring buffers against the power-of-two (bitmask) mode.
+ * <p>Both modes use the same capacity, so only the index arithmetic differs.
+ * <p>Run with <code>mvn -P benchmark test-compile exec:exec -Dbenchmark=RingBufferIndexing</code>
+ * 
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RingBufferIndexingBenchmark {
+
+    @Param({"false", "true"})
+    public boolean powerOfTwo;
+    
+    @Param({"1024"})
+    public int capacity;
+    
+    private final Integer element = 42;
+    private int index = 0;
+    
+    private TailInRingBuffer<Integer> ring;
+    private LimitedBuffer<Integer> buffer;
+    
+    @Setup
+    public void setup() {
+        ring = new TailInRingBuffer<>(capacity, powerOfTwo);
+        buffer = new LimitedBuffer<>(capacity, powerOfTwo, Integer.class, Integer[].class);
+        
+        for(int i = 0 ; i < capacity ; i++) {
+            ring.add(element);
+            buffer.write(element);
+        }
+    }
+    
+    @Benchmark
+    public Integer tailInRingBufferAddGet() {
+        ring.add(element);
+        return ring.get(nextIndex());
+    }
+    
+    @Benchmark
+    public Integer limitedBufferWriteReadFrom() {
+        buffer.write(element);
+        return buffer.readFrom(nextIndex());
+    }
+    
+    @Benchmark
+    public Integer[] limitedBufferWriteReadMany() {
+        buffer.write(element);
+        return buffer.read(64);
+    }
+    
+    /*
+     * strides through the buffer so reads are not always hitting the same slot
+     */
+    private final int nextIndex() {
+        index += 7;
+        if(index >= capacity) {
+            index -= capacity;
+        }
+        
+        return index;
+    }
+}
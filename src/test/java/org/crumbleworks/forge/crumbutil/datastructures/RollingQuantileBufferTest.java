@@ -0,0 +1,116 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+public class RollingQuantileBufferTest {
+
+    @Test
+    public void constructWithIllegalParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new RollingQuantileBuffer(0));
+        assertThrows(IllegalArgumentException.class, () -> new RollingQuantileBuffer(10, 0));
+        assertThrows(IllegalArgumentException.class, () -> new RollingQuantileBuffer(10, 15));
+    }
+    
+    @Test
+    public void bucketsCoverAllValues() {
+        RollingQuantileBuffer quantiles = new RollingQuantileBuffer(1, 3);
+        
+        long previousHighest = -1;
+        for(int bucket = 0 ; bucket < (64 - 3) << 3 ; bucket++) {
+            long highest = quantiles.highestValueOf(bucket);
+            assertEquals(bucket, quantiles.bucketOf(previousHighest + 1)); //no gaps between buckets
+            assertEquals(bucket, quantiles.bucketOf(highest));
+            previousHighest = highest;
+        }
+        assertEquals(Long.MAX_VALUE, previousHighest);
+    }
+    
+    /* ************************************************************************
+     * QUANTILES
+     */
+    @Test
+    public void emptyWindow() {
+        assertEquals(-1, new RollingQuantileBuffer(10).quantile(0.5));
+    }
+    
+    @Test
+    public void exactForSmallValues() {
+        RollingQuantileBuffer quantiles = new RollingQuantileBuffer(100);
+        for(int i = 1 ; i <= 100 ; i++) {
+            quantiles.add(i);
+        }
+        
+        assertEquals(50, quantiles.median());
+        assertEquals(99, quantiles.quantile(0.99));
+        assertEquals(100, quantiles.quantile(1));
+        assertEquals(1, quantiles.quantile(0));
+    }
+    
+    @Test
+    public void samplesAgeOut() {
+        RollingQuantileBuffer quantiles = new RollingQuantileBuffer(3);
+        quantiles.add(100);
+        quantiles.add(1);
+        quantiles.add(2);
+        assertEquals(100, quantiles.quantile(1));
+        
+        quantiles.add(3); //drops 100
+        assertEquals(3, quantiles.size());
+        assertEquals(3, quantiles.quantile(1));
+    }
+    
+    @Test
+    public void withinPrecisionOfSortedWindow() {
+        Random random = new Random(11);
+        RollingQuantileBuffer quantiles = new RollingQuantileBuffer(1_000);
+        long[] samples = new long[5_000];
+        
+        for(int i = 0 ; i < samples.length ; i++) {
+            samples[i] = (long)Math.exp(8 + random.nextGaussian() * 2); //log-normal, like latencies
+            quantiles.add(samples[i]);
+        }
+        
+        long[] window = Arrays.copyOfRange(samples, samples.length - 1_000, samples.length);
+        Arrays.sort(window);
+        for(double q : new double[]{0.5, 0.9, 0.99, 0.999}) {
+            long exact = window[(int)Math.ceil(q * window.length) - 1];
+            long estimate = quantiles.quantile(q);
+            
+            assertTrue(estimate >= exact, "p" + q);
+            assertTrue(estimate - exact <= exact / 128, "p" + q);
+        }
+    }
+    
+    @Test
+    public void illegalInput() {
+        RollingQuantileBuffer quantiles = new RollingQuantileBuffer(10);
+        
+        assertThrows(IllegalArgumentException.class, () -> quantiles.add(-1));
+        assertThrows(IllegalArgumentException.class, () -> quantiles.quantile(1.5));
+        assertThrows(IllegalArgumentException.class, () -> quantiles.quantile(Double.NaN));
+    }
+    
+    @Test
+    public void clear() {
+        RollingQuantileBuffer quantiles = new RollingQuantileBuffer(10);
+        quantiles.add(42);
+        quantiles.clear();
+        
+        assertEquals(0, quantiles.size());
+        assertEquals(-1, quantiles.median());
+        
+        quantiles.add(7);
+        assertEquals(7, quantiles.median());
+    }
+}
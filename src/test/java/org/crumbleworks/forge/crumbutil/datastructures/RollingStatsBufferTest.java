@@ -0,0 +1,121 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+public class RollingStatsBufferTest {
+
+    @Test
+    public void constructWithIllegalCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new RollingStatsBuffer(0));
+    }
+    
+    @Test
+    public void emptyWindow() {
+        RollingStatsBuffer stats = new RollingStatsBuffer(4);
+        
+        assertEquals(0, stats.size());
+        assertEquals(0d, stats.sum());
+        assertTrue(Double.isNaN(stats.mean()));
+        assertTrue(Double.isNaN(stats.variance()));
+        assertTrue(Double.isNaN(stats.min()));
+        assertTrue(Double.isNaN(stats.max()));
+    }
+    
+    /* ************************************************************************
+     * ADD
+     */
+    @Test
+    public void statisticsOfPartialWindow() {
+        RollingStatsBuffer stats = new RollingStatsBuffer(10);
+        for(double value : new double[]{2, 4, 4, 4, 5, 5, 7, 9}) {
+            stats.add(value);
+        }
+        
+        assertEquals(40d, stats.sum(), 1e-12);
+        assertEquals(5d, stats.mean(), 1e-12);
+        assertEquals(4d, stats.variance(), 1e-12);
+        assertEquals(32d / 7, stats.sampleVariance(), 1e-12);
+        assertEquals(2d, stats.standardDeviation(), 1e-12);
+        assertEquals(2d, stats.min());
+        assertEquals(9d, stats.max());
+    }
+    
+    @Test
+    public void statisticsFollowTheWindow() {
+        RollingStatsBuffer stats = new RollingStatsBuffer(3);
+        stats.add(9);
+        stats.add(1);
+        stats.add(5);
+        stats.add(3); //drops 9
+        
+        assertEquals(9d, stats.sum(), 1e-12);
+        assertEquals(1d, stats.min());
+        assertEquals(5d, stats.max());
+        
+        stats.add(4); //drops 1
+        assertEquals(3d, stats.min());
+        assertEquals(5d, stats.max());
+    }
+    
+    @Test
+    public void matchesRecomputedStatistics() {
+        Random random = new Random(7);
+        RollingStatsBuffer stats = new RollingStatsBuffer(50);
+        
+        for(int i = 0 ; i < 5_000 ; i++) {
+            stats.add(1_000 + random.nextGaussian() * 25);
+            
+            double[] window = stats.toArray(new double[0]);
+            double sum = 0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for(double value : window) {
+                sum += value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            double mean = sum / window.length;
+            double squares = 0;
+            for(double value : window) {
+                squares += (value - mean) * (value - mean);
+            }
+            
+            assertEquals(sum, stats.sum(), 1e-6);
+            assertEquals(mean, stats.mean(), 1e-9);
+            assertEquals(squares / window.length, stats.variance(), 1e-6);
+            assertEquals(min, stats.min());
+            assertEquals(max, stats.max());
+        }
+    }
+    
+    @Test
+    public void addNaN() {
+        assertThrows(IllegalArgumentException.class, () -> new RollingStatsBuffer(4).add(Double.NaN));
+    }
+    
+    @Test
+    public void clear() {
+        RollingStatsBuffer stats = new RollingStatsBuffer(3);
+        stats.add(1);
+        stats.add(2);
+        stats.clear();
+        
+        assertEquals(0, stats.size());
+        assertTrue(Double.isNaN(stats.max()));
+        
+        stats.add(7);
+        assertEquals(7d, stats.mean());
+        assertEquals(0d, stats.variance());
+        assertEquals(7d, stats.min());
+    }
+}
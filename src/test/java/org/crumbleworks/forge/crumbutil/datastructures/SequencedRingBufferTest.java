@@ -0,0 +1,187 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+public class SequencedRingBufferTest {
+
+    @Test
+    public void constructWithIllegalParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new SequencedRingBuffer<>(0, Slot::new));
+        assertThrows(IllegalArgumentException.class, () -> new SequencedRingBuffer<Slot>(4, null));
+    }
+    
+    @Test
+    public void slotsArePreallocatedAndReused() {
+        SequencedRingBuffer<Slot> ring = new SequencedRingBuffer<>(3, Slot::new);
+        assertEquals(4, ring.capacity());
+        
+        Slot first = ring.get(0);
+        assertSame(first, ring.get(4));
+        assertSame(first, ring.get(8));
+    }
+    
+    /* ************************************************************************
+     * CLAIM & PUBLISH
+     */
+    @Test
+    public void claimAndPublish() {
+        SequencedRingBuffer<Slot> ring = new SequencedRingBuffer<>(8, Slot::new);
+        SequencedRingBuffer<Slot>.Reader reader = ring.newReader();
+        
+        long hi = ring.claim(3);
+        assertEquals(2, hi);
+        assertEquals(0, reader.available());
+        
+        write(ring, 0, 2);
+        ring.publish(0, 2);
+        assertEquals(3, reader.available());
+        
+        assertEquals(Arrays.asList(0L, 1L, 2L), read(reader));
+        assertEquals(2, reader.sequence());
+    }
+    
+    @Test
+    public void readerStopsAtGap() {
+        SequencedRingBuffer<Slot> ring = new SequencedRingBuffer<>(8, Slot::new);
+        SequencedRingBuffer<Slot>.Reader reader = ring.newReader();
+        
+        ring.claim(4);
+        write(ring, 0, 3);
+        ring.publish(0);
+        ring.publish(1);
+        ring.publish(3); //2 is still being filled
+        
+        assertFalse(ring.isPublished(2));
+        assertEquals(Arrays.asList(0L, 1L), read(reader));
+        
+        ring.publish(2);
+        assertEquals(Arrays.asList(2L, 3L), read(reader));
+    }
+    
+    @Test
+    public void tryClaimFailsIfReaderIsBehind() {
+        SequencedRingBuffer<Slot> ring = new SequencedRingBuffer<>(4, Slot::new);
+        SequencedRingBuffer<Slot>.Reader reader = ring.newReader();
+        
+        assertEquals(3, ring.tryClaim(4));
+        ring.publish(0, 3);
+        assertEquals(-1, ring.tryClaim(1));
+        
+        assertEquals(2, reader.poll(s -> {}, 2));
+        assertEquals(5, ring.tryClaim(2));
+        assertEquals(-1, ring.tryClaim(1));
+        
+        assertThrows(IllegalArgumentException.class, () -> ring.tryClaim(0));
+        assertThrows(IllegalArgumentException.class, () -> ring.tryClaim(5));
+    }
+    
+    @Test
+    public void closedReaderNoLongerHoldsUpProducers() {
+        SequencedRingBuffer<Slot> ring = new SequencedRingBuffer<>(4, Slot::new);
+        SequencedRingBuffer<Slot>.Reader reader = ring.newReader();
+        
+        ring.publish(0, ring.claim(4));
+        assertEquals(-1, ring.tryClaim(1));
+        
+        reader.close();
+        assertEquals(4, ring.tryClaim(1));
+    }
+    
+    @Test
+    public void readersSeeAllSlots() {
+        SequencedRingBuffer<Slot> ring = new SequencedRingBuffer<>(4, Slot::new);
+        SequencedRingBuffer<Slot>.Reader first = ring.newReader();
+        SequencedRingBuffer<Slot>.Reader second = ring.newReader();
+        
+        write(ring, 0, ring.claim(2));
+        ring.publish(0, 1);
+        
+        assertEquals(Arrays.asList(0L, 1L), read(first));
+        assertEquals(Arrays.asList(0L, 1L), read(second));
+    }
+    
+    /* ************************************************************************
+     * CONCURRENCY
+     */
+    @Test
+    public void multipleProducers() throws InterruptedException {
+        final int producers = 4;
+        final int perProducer = 100_000;
+        SequencedRingBuffer<Slot> ring = new SequencedRingBuffer<>(256, Slot::new);
+        SequencedRingBuffer<Slot>.Reader reader = ring.newReader();
+        
+        List<Thread> threads = new ArrayList<>();
+        for(int p = 0 ; p < producers ; p++) {
+            final int producer = p;
+            Thread thread = new Thread(() -> {
+                for(int i = 0 ; i < perProducer ; i += 2) { //in batches of two
+                    long hi = ring.claim(2);
+                    ring.get(hi - 1).set(producer, i);
+                    ring.get(hi).set(producer, i + 1);
+                    ring.publish(hi - 1, hi);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        
+        long[] next = new long[producers];
+        int read = 0;
+        while(read < producers * perProducer) {
+            int polled = reader.poll(s -> {
+                assertEquals(next[s.producer]++, s.value); //in order per producer
+            });
+            if(polled == 0) {
+                Thread.yield();
+            }
+            read += polled;
+        }
+        
+        for(Thread thread : threads) {
+            thread.join();
+        }
+        for(int p = 0 ; p < producers ; p++) {
+            assertEquals(perProducer, next[p]);
+        }
+        assertTrue(reader.available() == 0);
+    }
+    
+    /* ************************************************************************
+     * HELPERS
+     */
+    private static final class Slot {
+        int producer;
+        long value;
+        
+        void set(int producer, long value) {
+            this.producer = producer;
+            this.value = value;
+        }
+    }
+    
+    private static void write(SequencedRingBuffer<Slot> ring, long lo, long hi) {
+        for(long sequence = lo ; sequence <= hi ; sequence++) {
+            ring.get(sequence).set(0, sequence);
+        }
+    }
+    
+    private static List<Long> read(SequencedRingBuffer<Slot>.Reader reader) {
+        List<Long> values = new ArrayList<>();
+        reader.poll(s -> values.add(s.value));
+        return values;
+    }
+}
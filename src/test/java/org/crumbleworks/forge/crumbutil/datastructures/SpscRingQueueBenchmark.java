@@ -0,0 +1,71 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of a {@link SpscRingQueue} with one producer and one consumer thread, compared to a {@link LimitedBuffer} used the same way.
+ * <p>Run with <code>mvn -P benchmark test-compile exec:exec -Dbenchmark=SpscRingQueue</code>
+ * 
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class SpscRingQueueBenchmark {
+
+    private final Integer element = 42;
+    
+    private SpscRingQueue<Integer> queue;
+    private LimitedBuffer<Integer> buffer;
+    
+    @Setup
+    public void setup() {
+        queue = new SpscRingQueue<>(1024);
+        buffer = new LimitedBuffer<>(1024, Integer.class, Integer[].class);
+    }
+    
+    @Benchmark
+    @Group("queue")
+    @GroupThreads(1)
+    public boolean queueOffer() {
+        return queue.offer(element);
+    }
+    
+    @Benchmark
+    @Group("queue")
+    @GroupThreads(1)
+    public Integer queuePoll() {
+        return queue.poll();
+    }
+    
+    @Benchmark
+    @Group("limitedBuffer")
+    @GroupThreads(1)
+    public void limitedBufferWrite() {
+        buffer.write(element);
+    }
+    
+    @Benchmark
+    @Group("limitedBuffer")
+    @GroupThreads(1)
+    public Integer[] limitedBufferRead() {
+        return buffer.read(1);
+    }
+}
@@ -0,0 +1,160 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+public class SpscRingQueueTest {
+
+    @Test
+    public void constructWithIllegalCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new SpscRingQueue<>(0));
+        assertThrows(IllegalArgumentException.class, () -> new SpscRingQueue<>(-3));
+    }
+    
+    @Test
+    public void capacityIsRoundedUpToPowerOfTwo() {
+        assertEquals(8, new SpscRingQueue<>(5).capacity());
+        assertEquals(8, new SpscRingQueue<>(8).capacity());
+    }
+    
+    /* ************************************************************************
+     * OFFER & POLL
+     */
+    @Test
+    public void offerAndPoll() {
+        SpscRingQueue<Integer> queue = new SpscRingQueue<>(4);
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+        
+        assertTrue(queue.offer(1));
+        assertTrue(queue.offer(2));
+        assertEquals(2, queue.size());
+        
+        assertEquals(Integer.valueOf(1), queue.poll());
+        assertEquals(Integer.valueOf(2), queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+    
+    @Test
+    public void offerToFullQueueFails() {
+        SpscRingQueue<Integer> queue = new SpscRingQueue<>(4);
+        for(int i = 0 ; i < 4 ; i++) {
+            assertTrue(queue.offer(i));
+        }
+        
+        assertFalse(queue.offer(4));
+        assertEquals(4, queue.size());
+        
+        assertEquals(Integer.valueOf(0), queue.poll());
+        assertTrue(queue.offer(4));
+    }
+    
+    @Test
+    public void offerNull() {
+        assertThrows(IllegalArgumentException.class, () -> new SpscRingQueue<>(4).offer(null));
+    }
+    
+    @Test
+    public void offerAndPollWrappingMultipleTimes() {
+        SpscRingQueue<Integer> queue = new SpscRingQueue<>(4);
+        for(int i = 0 ; i < 50 ; i++) {
+            assertTrue(queue.offer(i));
+            assertTrue(queue.offer(-i));
+            assertEquals(Integer.valueOf(i), queue.poll());
+            assertEquals(Integer.valueOf(-i), queue.poll());
+        }
+    }
+    
+    /* ************************************************************************
+     * DRAIN
+     */
+    @Test
+    public void drain() {
+        SpscRingQueue<Integer> queue = new SpscRingQueue<>(4);
+        queue.offer(1);
+        queue.offer(2);
+        queue.poll();
+        queue.offer(3);
+        queue.offer(4);
+        queue.offer(5); //wraps
+        
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(4, queue.drain(drained::add));
+        
+        assertEquals(Arrays.asList(2, 3, 4, 5), drained);
+        assertTrue(queue.isEmpty());
+    }
+    
+    @Test
+    public void drainWithLimit() {
+        SpscRingQueue<Integer> queue = new SpscRingQueue<>(8);
+        for(int i = 0 ; i < 5 ; i++) {
+            queue.offer(i);
+        }
+        
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(3, queue.drain(drained::add, 3));
+        assertEquals(Arrays.asList(0, 1, 2), drained);
+        assertEquals(2, queue.size());
+        
+        assertThrows(IllegalArgumentException.class, () -> queue.drain(drained::add, -1));
+    }
+    
+    @Test
+    public void drainKeepsPositionIfCallbackThrows() {
+        SpscRingQueue<Integer> queue = new SpscRingQueue<>(8);
+        for(int i = 0 ; i < 5 ; i++) {
+            queue.offer(i);
+        }
+        
+        assertThrows(IllegalStateException.class, () -> queue.drain(e -> {
+            if(e == 2) {
+                throw new IllegalStateException();
+            }
+        }));
+        
+        assertEquals(Integer.valueOf(3), queue.poll());
+    }
+    
+    /* ************************************************************************
+     * CONCURRENCY
+     */
+    @Test
+    public void producerAndConsumerThreads() throws InterruptedException {
+        final int elements = 1_000_000;
+        SpscRingQueue<Integer> queue = new SpscRingQueue<>(1024);
+        
+        Thread producer = new Thread(() -> {
+            for(int i = 0 ; i < elements ; i++) {
+                while(!queue.offer(i)) {
+                    Thread.yield();
+                }
+            }
+        });
+        producer.start();
+        
+        int[] expected = {0};
+        while(expected[0] < elements) {
+            if(queue.drain(e -> assertEquals(expected[0]++, e.intValue()), 100) == 0) {
+                Thread.yield();
+            }
+        }
+        
+        producer.join();
+        assertTrue(queue.isEmpty());
+    }
+}
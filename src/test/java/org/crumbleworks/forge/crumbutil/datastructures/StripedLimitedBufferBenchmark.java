@@ -0,0 +1,53 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the write throughput of a {@link StripedLimitedBuffer} with four writing threads, compared to a {@link LimitedBuffer} written to the same way.
+ * <p>Run with <code>mvn -P benchmark test-compile exec:exec -Dbenchmark=StripedLimitedBuffer</code>
+ * 
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class StripedLimitedBufferBenchmark {
+
+    private final Integer element = 42;
+    
+    private StripedLimitedBuffer<Integer> striped;
+    private LimitedBuffer<Integer> plain;
+    
+    @Setup
+    public void setup() {
+        striped = new StripedLimitedBuffer<>(1024, Integer.class);
+        plain = new LimitedBuffer<>(1024, Integer.class, Integer[].class);
+    }
+    
+    @Benchmark
+    public void stripedWrite() {
+        striped.write(element);
+    }
+    
+    @Benchmark
+    public void limitedBufferWrite() {
+        plain.write(element);
+    }
+}
@@ -0,0 +1,124 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+public class StripedLimitedBufferTest {
+
+    @Test
+    public void constructWithIllegalParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new StripedLimitedBuffer<>(0, 2, Integer.class));
+        assertThrows(IllegalArgumentException.class, () -> new StripedLimitedBuffer<>(4, 0, Integer.class));
+    }
+    
+    @Test
+    public void stripesAreRoundedToPowerOfTwo() {
+        assertEquals(8, new StripedLimitedBuffer<>(4, 5, Integer.class).getStripes());
+    }
+    
+    /* **********************************************************************
+     * SINGLE THREAD
+     */
+    
+    @Test
+    public void readFromEmptyBuffer() {
+        StripedLimitedBuffer<Integer> buff = new StripedLimitedBuffer<>(4, 4, Integer.class);
+        
+        assertNull(buff.read());
+        assertEquals(0, buff.read(3).length);
+        assertEquals(0, buff.getSize());
+    }
+    
+    @Test
+    public void readsLikeLimitedBuffer() {
+        StripedLimitedBuffer<Integer> striped = new StripedLimitedBuffer<>(5, 4, Integer.class);
+        LimitedBuffer<Integer> plain = new LimitedBuffer<>(5, Integer.class, Integer[].class);
+        
+        for(int i = 0 ; i < 13 ; i++) {
+            striped.write(i);
+            plain.write(i);
+            
+            assertEquals(plain.getSize(), striped.getSize());
+            assertEquals(plain.read(), striped.read());
+            for(int n = 0 ; n <= 7 ; n++) {
+                assertArrayEquals(plain.read(n), striped.read(n));
+            }
+        }
+    }
+    
+    @Test
+    public void clear() {
+        StripedLimitedBuffer<Integer> buff = new StripedLimitedBuffer<>(3, 2, Integer.class);
+        buff.write(1);
+        buff.write(2);
+        buff.clear();
+        
+        assertEquals(0, buff.getSize());
+        
+        buff.write(3);
+        assertArrayEquals(new Integer[] {3}, buff.read(3));
+    }
+    
+    /* **********************************************************************
+     * CONCURRENCY
+     */
+    
+    @Test
+    public void mergesStripesInSequenceOrder() throws InterruptedException {
+        final int threads = 4;
+        final int writes = 1_000;
+        StripedLimitedBuffer<Long> buff = new StripedLimitedBuffer<>(64, threads, Long.class);
+        
+        //each thread writes ascending values tagged with its number
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> writers = new ArrayList<>();
+        for(int t = 0 ; t < threads ; t++) {
+            final long tag = t;
+            Thread writer = new Thread(() -> {
+                try {
+                    start.await();
+                } catch(InterruptedException e) {
+                    return;
+                }
+                for(long i = 0 ; i < writes ; i++) {
+                    buff.write(i * threads + tag);
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+        start.countDown();
+        for(Thread writer : writers) {
+            writer.join();
+        }
+        
+        Long[] newest = buff.read(64);
+        assertEquals(64, newest.length);
+        
+        //merged in sequence order, so the values of every single thread stay ascending
+        long[] last = new long[threads];
+        Arrays.fill(last, -1);
+        for(Long value : newest) {
+            int tag = (int)(value % threads);
+            assertTrue(value > last[tag]);
+            last[tag] = value;
+        }
+        
+        //the very last write of at least one thread is the newest entry
+        assertTrue(newest[63] / threads == writes - 1);
+    }
+}
@@ -0,0 +1,175 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+public class TimeWindowBufferTest {
+
+    @Test
+    public void constructWithIllegalParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new TimeWindowBuffer<>(0, Duration.ofSeconds(1)));
+        assertThrows(IllegalArgumentException.class, () -> new TimeWindowBuffer<>(4, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> new TimeWindowBuffer<>(4, Duration.ofSeconds(-1)));
+        assertThrows(IllegalArgumentException.class, () -> new TimeWindowBuffer<>(4, Duration.ofNanos(999_999)));
+    }
+    
+    @Test
+    public void hugeMaxAgeNeverExpires() {
+        TestClock clock = new TestClock();
+        clock.advance(-10); //before the epoch, the expiry would overflow
+        TimeWindowBuffer<String> buffer = new TimeWindowBuffer<>(4, Duration.ofSeconds(Long.MAX_VALUE), clock);
+        assertEquals(Duration.ofMillis(Long.MAX_VALUE), buffer.maxAge());
+        
+        buffer.add("a");
+        clock.advance(Long.MAX_VALUE / 2);
+        assertEquals(1, buffer.size());
+    }
+    
+    /* ************************************************************************
+     * EVICTION
+     */
+    @Test
+    public void evictsByCount() {
+        TimeWindowBuffer<Integer> buffer = new TimeWindowBuffer<>(3, Duration.ofMinutes(1), new TestClock());
+        for(int i = 0 ; i < 5 ; i++) {
+            buffer.add(i);
+        }
+        
+        assertEquals(3, buffer.size());
+        assertEquals(Arrays.asList(2, 3, 4), buffer.toList());
+    }
+    
+    @Test
+    public void evictsByAge() {
+        TestClock clock = new TestClock();
+        TimeWindowBuffer<String> buffer = new TimeWindowBuffer<>(10, Duration.ofSeconds(60), clock);
+        
+        buffer.add("a");
+        clock.advance(30_000);
+        buffer.add("b");
+        clock.advance(29_999);
+        assertEquals(2, buffer.size());
+        
+        clock.advance(1); //a is 60s old
+        assertEquals(1, buffer.size());
+        assertEquals("b", buffer.get(0));
+        
+        clock.advance(60_000);
+        assertEquals(0, buffer.size());
+        assertTrue(buffer.toList().isEmpty());
+    }
+    
+    @Test
+    public void evictsWhileWrapping() {
+        TestClock clock = new TestClock();
+        TimeWindowBuffer<Integer> buffer = new TimeWindowBuffer<>(4, Duration.ofSeconds(10), clock);
+        for(int i = 0 ; i < 7 ; i++) {
+            buffer.add(i);
+            clock.advance(3_000);
+        }
+        
+        //added at 9s, 12s, 15s, 18s; now 21s
+        assertEquals(Arrays.asList(4, 5, 6), buffer.toList());
+        assertEquals(Instant.ofEpochMilli(12_000), buffer.timestamp(0));
+    }
+    
+    /* ************************************************************************
+     * RANGES
+     */
+    @Test
+    public void since() {
+        TestClock clock = new TestClock();
+        TimeWindowBuffer<Integer> buffer = new TimeWindowBuffer<>(8, Duration.ofMinutes(1), clock);
+        for(int i = 0 ; i < 10 ; i++) { //wraps
+            buffer.add(i);
+            clock.advance(1_000);
+        }
+        
+        assertEquals(Arrays.asList(6, 7, 8, 9), buffer.since(Instant.ofEpochMilli(6_000)));
+        assertEquals(Arrays.asList(7, 8, 9), buffer.since(Instant.ofEpochMilli(6_500)));
+        assertEquals(Arrays.asList(2, 3, 4, 5, 6, 7, 8, 9), buffer.since(Instant.EPOCH));
+        assertTrue(buffer.since(Instant.ofEpochMilli(20_000)).isEmpty());
+        
+        assertEquals(Arrays.asList(8, 9), buffer.last(Duration.ofMillis(2_000)));
+    }
+    
+    @Test
+    public void clockGoingBackwardsKeepsOrder() {
+        TestClock clock = new TestClock();
+        TimeWindowBuffer<Integer> buffer = new TimeWindowBuffer<>(4, Duration.ofMinutes(1), clock);
+        
+        clock.advance(5_000);
+        buffer.add(1);
+        clock.advance(-2_000);
+        buffer.add(2);
+        
+        assertEquals(Instant.ofEpochMilli(5_000), buffer.timestamp(1));
+        assertEquals(Arrays.asList(1, 2), buffer.since(Instant.ofEpochMilli(5_000)));
+    }
+    
+    @Test
+    public void getOutsideRange() {
+        TimeWindowBuffer<Integer> buffer = new TimeWindowBuffer<>(4, Duration.ofMinutes(1), new TestClock());
+        buffer.add(1);
+        
+        assertThrows(IllegalArgumentException.class, () -> buffer.get(1));
+        assertThrows(IllegalArgumentException.class, () -> buffer.get(-1));
+    }
+    
+    @Test
+    public void clear() {
+        TimeWindowBuffer<Integer> buffer = new TimeWindowBuffer<>(4, Duration.ofMinutes(1), new TestClock());
+        buffer.add(1);
+        buffer.add(2);
+        buffer.clear();
+        
+        assertEquals(0, buffer.size());
+        buffer.add(3);
+        assertEquals(Arrays.asList(3), buffer.toList());
+    }
+    
+    /* ************************************************************************
+     * HELPERS
+     */
+    private static final class TestClock extends Clock {
+        private long millis = 0;
+        
+        void advance(long delta) {
+            millis += delta;
+        }
+        
+        @Override
+        public long millis() {
+            return millis;
+        }
+        
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+        
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+        
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+public class TimeoutsTest {
+
+    @Test
+    public void nanosOf() {
+        assertEquals(1_500_000, Timeouts.nanosOf(Duration.ofNanos(1_500_000)));
+        assertEquals(0, Timeouts.nanosOf(Duration.ofSeconds(-1)));
+        assertEquals(Timeouts.FOREVER, Timeouts.nanosOf(Duration.ofDays(365 * 300)));
+        assertThrows(IllegalArgumentException.class, () -> Timeouts.nanosOf(null));
+    }
+}
@@ -0,0 +1,66 @@
+package org.crumbleworks.forge.crumbutil.datastructures;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Michael Stocker
+ * @since 0.8.0
+ */
+@SuppressWarnings("deprecation")
+public class WaitBufferTest {
+
+    @Test
+    public void getReceivesTheNextObject() throws InterruptedException {
+        WaitBuffer<String> buffer = new WaitBuffer<>();
+        buffer.set("lost"); //nobody is waiting yet
+        
+        AtomicReference<String> received = new AtomicReference<>();
+        Thread consumer = new Thread(() -> {
+            try {
+                received.set(buffer.get());
+            } catch(InterruptedException e) {
+                //fails the assertion below
+            }
+        });
+        consumer.start();
+        
+        while(!buffer.isWaiting()) {
+            Thread.yield();
+        }
+        buffer.set("a");
+        consumer.join(10_000);
+        
+        assertFalse(consumer.isAlive());
+        assertEquals("a", received.get());
+        assertFalse(buffer.isWaiting());
+    }
+    
+    @Test
+    public void getCanBeInterrupted() throws InterruptedException {
+        WaitBuffer<String> buffer = new WaitBuffer<>();
+        AtomicReference<Object> result = new AtomicReference<>();
+        Thread consumer = new Thread(() -> {
+            try {
+                result.set(buffer.get());
+            } catch(InterruptedException e) {
+                result.set(e);
+            }
+        });
+        consumer.start();
+        
+        while(!buffer.isWaiting()) {
+            Thread.yield();
+        }
+        consumer.interrupt();
+        consumer.join(10_000);
+        
+        assertFalse(consumer.isAlive());
+        assertTrue(result.get() instanceof InterruptedException);
+    }
+}
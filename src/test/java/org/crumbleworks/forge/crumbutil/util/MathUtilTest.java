@@ -1,6 +1,7 @@
 package org.crumbleworks.forge.crumbutil.util;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import org.junit.jupiter.api.Test;
 
@@ -77,4 +78,22 @@ public class MathUtilTest {
             assertEquals(out[i], MathUtil.lcm(in[i][0], in[i][1]));
         }
     }
+    
+    @Test
+    public void testNextPowerOfTwo() {
+        long[] in = {1l, 2l, 3l, 5l, 1000l, 1024l, 1025l, 324567543l, (1l << 62)};
+        long[] out = {1l, 2l, 4l, 8l, 1024l, 1024l, 2048l, 536870912l, (1l << 62)};
+        
+        for(int i = 0 ; i < in.length ; i++) {
+            assertEquals(out[i], MathUtil.nextPowerOfTwo(in[i]));
+        }
+    }
+    
+    @Test
+    public void testNextPowerOfTwoOutsideRange() {
+        assertThrows(IllegalArgumentException.class, () -> MathUtil.nextPowerOfTwo(0l));
+        assertThrows(IllegalArgumentException.class, () -> MathUtil.nextPowerOfTwo(-5l));
+        assertThrows(IllegalArgumentException.class, () -> MathUtil.nextPowerOfTwo((1 << 30) + 1));
+        assertThrows(IllegalArgumentException.class, () -> MathUtil.nextPowerOfTwo((1l << 62) + 1));
+    }
 }